@@ -0,0 +1,60 @@
+/*
+ * Copyright 2012-14 Justin A. Debrabant <debrabant@cs.brown.edu> and Matteo Riondato <matteo@cs.brown.edu>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import java.io.IOException;
+import java.util.Iterator;
+
+import org.apache.hadoop.mapred.MapReduceBase;
+import org.apache.hadoop.mapred.OutputCollector;
+import org.apache.hadoop.mapred.Reducer;
+import org.apache.hadoop.mapred.Reporter;
+
+/**
+ * Combiner of the aggregation job. Packs all the frequencies of an
+ * itemset output by a map task into a single FrequencyListWritable, so
+ * that the shuffle moves one record per distinct itemset and map task
+ * instead of one per (itemset, sample).
+ *
+ * Nothing can be discarded here: whether an itemset appears in enough
+ * samples is only known after all the map tasks are grouped, in
+ * AggregateReducer.
+ */
+public class AggregateCombiner extends MapReduceBase 
+	implements Reducer<ItemsetWritable, FrequencyListWritable, ItemsetWritable, FrequencyListWritable>
+{
+	private FrequencyListWritable combined = new FrequencyListWritable();
+
+	@Override
+	public void reduce(ItemsetWritable itemset, Iterator<FrequencyListWritable> values, 
+			OutputCollector<ItemsetWritable, FrequencyListWritable> output, 
+			Reporter reporter) throws IOException
+	{
+		FrequencyListWritable first = values.next();
+		if (! values.hasNext())
+		{
+			output.collect(itemset, first);
+			return;
+		}
+		combined.clear();
+		combined.addAll(first);
+		while (values.hasNext())
+		{
+			combined.addAll(values.next());
+		}
+		output.collect(itemset, combined);
+	}
+}
@@ -16,23 +16,29 @@
  */
 
 import java.io.IOException;
-import java.util.Arrays;
-import java.util.StringTokenizer;
 
 import org.apache.hadoop.io.DoubleWritable;
-import org.apache.hadoop.io.Text;
-import org.apache.hadoop.io.Writable;
 import org.apache.hadoop.mapred.JobConf;
 import org.apache.hadoop.mapred.MapReduceBase;
 import org.apache.hadoop.mapred.Mapper;
 import org.apache.hadoop.mapred.OutputCollector;
 import org.apache.hadoop.mapred.Reporter;
 
+/**
+ * Identity map of the aggregation job. The FIMReducers emit the itemsets
+ * as ItemsetWritables, whose items are sorted, so the same itemset has
+ * the same key whatever sample it was found in and the shuffle groups the
+ * keys, compared in serialized form, as they are.
+ *
+ * Each frequency is sent as a single-element FrequencyListWritable, which
+ * AggregateCombiner then packs with the others of the same itemset.
+ */
 public class AggregateMapper extends MapReduceBase 
-implements Mapper<Text, DoubleWritable, Text, DoubleWritable>
+implements Mapper<ItemsetWritable, DoubleWritable, ItemsetWritable, FrequencyListWritable>
 {
 	private int id;
 	private boolean set;
+	private FrequencyListWritable freqs = new FrequencyListWritable();
 
 	@Override
 	public void configure(JobConf conf) 
@@ -43,8 +49,8 @@ implements Mapper<Text, DoubleWritable, Text, DoubleWritable>
 
 
 	@Override
-	public void map(Text itemset, DoubleWritable freq,
-			OutputCollector<Text, DoubleWritable> output, Reporter reporter) throws IOException
+	public void map(ItemsetWritable itemset, DoubleWritable freq,
+			OutputCollector<ItemsetWritable, FrequencyListWritable> output, Reporter reporter) throws IOException
 	{
 		long startTime = System.currentTimeMillis();
 		if (! set)
@@ -54,24 +60,8 @@ implements Mapper<Text, DoubleWritable, Text, DoubleWritable>
 			set = true;
 		}
 
-		String itemsetStr = itemset.toString();
-		StringTokenizer strTok = new StringTokenizer(itemsetStr);
-		String[] items  = new String[strTok.countTokens()];
-		int i = 0;
-		while (i < items.length)
-		{
-			items[i] = strTok.nextToken();
-			i++;
-		}
-		Arrays.sort(items);
-		String sortedItemsetStr = "";
-		for (i = 0; i < items.length -1; i++) 
-		{
-			sortedItemsetStr = sortedItemsetStr +  items[i] + " ";
-		}
-		sortedItemsetStr += items[i];
-		Text sortedItemset = new Text(sortedItemsetStr);
-		output.collect(sortedItemset, freq);
+		freqs.set(freq.get());
+		output.collect(itemset, freqs);
 
 		long endTime = System.currentTimeMillis();
 		reporter.incrCounter("AggregateMapperEnd", String.valueOf(id), endTime-startTime);
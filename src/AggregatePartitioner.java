@@ -0,0 +1,218 @@
+/*
+ * Copyright 2012-14 Justin A. Debrabant <debrabant@cs.brown.edu> and Matteo Riondato <matteo@cs.brown.edu>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+
+import org.apache.hadoop.filecache.DistributedCache;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.DoubleWritable;
+import org.apache.hadoop.io.SequenceFile;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapred.Partitioner;
+
+/**
+ * Range partitioner of the aggregation job.
+ *
+ * The itemsets are far from uniform: short ones are much more numerous
+ * than long ones, and the itemsets sharing a frequent item are many
+ * more than the others. The split points are therefore taken from a
+ * sample of the keys of the FIM job output (see writeSplits()), so that
+ * each reducer gets about the same number of records, and shipped
+ * through the DistributedCache. Each itemset goes to the reducer whose
+ * range, in ItemsetWritable order, contains it.
+ *
+ * Without split points, or if they were computed for a different number
+ * of reducers, itemsets are partitioned by hash as by HashPartitioner.
+ * As this holds for all the tasks, they all use the same partition
+ * function. A task failing to read the split points fails.
+ *
+ * Format (big-endian, as written by DataOutputStream):
+ *   int    splitsNum               number of split points
+ *   then, for each split point, in increasing order:
+ *   int    size                    number of items
+ *   int    items[size]             the items, sorted
+ */
+public class AggregatePartitioner implements Partitioner<ItemsetWritable, FrequencyListWritable>
+{
+	/**
+	 * Minimum distance between the sampled positions of a file for
+	 * seeking to them. SequenceFiles have a sync mark every few KB, so
+	 * closer positions would often land on the same mark.
+	 */
+	private static final long SEEK_SPACING = 1 << 16;
+
+	private ItemsetWritable[] splits;
+
+	@Override
+	public void configure(JobConf conf)
+	{
+		try
+		{
+			Path[] localFiles = DistributedCache.getLocalCacheFiles(conf);
+			if (localFiles != null)
+			{
+				for (Path localFile : localFiles)
+				{
+					if (localFile.getName().startsWith("aggrSplits"))
+					{
+						splits = read(new File(localFile.toString()));
+					}
+				}
+			}
+		}
+		catch (IOException e)
+		{
+			// Falling back to hashing in this task only would send the
+			// frequencies of an itemset to different reducers: fail it.
+			throw new RuntimeException("Cannot read the aggregation split points", e);
+		}
+	}
+
+	@Override
+	public int getPartition(ItemsetWritable itemset, FrequencyListWritable freqs, int numPartitions)
+	{
+		if (splits == null || splits.length != numPartitions - 1)
+		{
+			return (itemset.hashCode() & Integer.MAX_VALUE) % numPartitions;
+		}
+		// Number of split points not greater than the itemset.
+		int low = 0;
+		int high = splits.length;
+		while (low < high)
+		{
+			int mid = (low + high) >>> 1;
+			if (splits[mid].compareTo(itemset) <= 0)
+			{
+				low = mid + 1;
+			}
+			else
+			{
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Read the split points in the given file.
+	 */
+	public static ItemsetWritable[] read(File file) throws IOException
+	{
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+		try
+		{
+			ItemsetWritable[] splits = new ItemsetWritable[in.readInt()];
+			for (int i = 0; i < splits.length; i++)
+			{
+				int[] items = new int[in.readInt()];
+				for (int j = 0; j < items.length; j++)
+				{
+					items[j] = in.readInt();
+				}
+				splits[i] = new ItemsetWritable(items);
+			}
+			return splits;
+		}
+		finally
+		{
+			in.close();
+		}
+	}
+
+	/**
+	 * Sample about samplesNum keys of the SequenceFiles in the given
+	 * directory, the output of the FIM job, and write the split points
+	 * dividing them into partitionsNum ranges of the same size.
+	 *
+	 * The keys are read at evenly spaced positions of each file, in
+	 * number proportional to the size of the file. In large files the
+	 * reader seeks to the next sync mark after each position, so only a
+	 * small part of the output is read, small files are read through.
+	 */
+	public static void writeSplits(DataOutputStream out, Path localFIsPath, JobConf conf,
+			int partitionsNum, int samplesNum) throws IOException
+	{
+		FileSystem fs = localFIsPath.getFileSystem(conf);
+		FileStatus[] files = fs.globStatus(new Path(localFIsPath, "part-*"));
+		long totalLength = 0;
+		for (FileStatus file : files)
+		{
+			totalLength += file.getLen();
+		}
+
+		ArrayList<ItemsetWritable> sample = new ArrayList<ItemsetWritable>(samplesNum);
+		ItemsetWritable itemset = new ItemsetWritable();
+		DoubleWritable freq = new DoubleWritable();
+		for (FileStatus file : files)
+		{
+			if (file.getLen() == 0)
+			{
+				continue;
+			}
+			int positionsNum = (int) Math.max(1, Math.ceil((double) samplesNum * file.getLen() / totalLength));
+			boolean seek = file.getLen() / positionsNum >= SEEK_SPACING;
+			SequenceFile.Reader reader = new SequenceFile.Reader(fs, file.getPath(), conf);
+			try
+			{
+				boolean more = true;
+				for (int k = 0; k < positionsNum && more; k++)
+				{
+					long position = file.getLen() * k / positionsNum;
+					if (seek && k > 0)
+					{
+						reader.sync(position);
+					}
+					while (more && reader.getPosition() < position)
+					{
+						more = reader.next(itemset, freq);
+					}
+					more = more && reader.next(itemset, freq);
+					if (more)
+					{
+						sample.add(new ItemsetWritable(itemset.toArray()));
+					}
+				}
+			}
+			finally
+			{
+				reader.close();
+			}
+		}
+
+		Collections.sort(sample);
+		int splitsNum = sample.isEmpty() ? 0 : partitionsNum - 1;
+		out.writeInt(splitsNum);
+		for (int i = 1; i <= splitsNum; i++)
+		{
+			ItemsetWritable split = sample.get((int) ((long) i * sample.size() / partitionsNum));
+			out.writeInt(split.size());
+			for (int j = 0; j < split.size(); j++)
+			{
+				out.writeInt(split.getItems()[j]);
+			}
+		}
+	}
+}
@@ -17,12 +17,9 @@
 
 import java.io.IOException;
 import java.util.Arrays;
-import java.util.ArrayList;
 import java.util.Iterator;
 
 import org.apache.hadoop.fs.Path;
-import org.apache.hadoop.io.DoubleWritable;
-import org.apache.hadoop.io.Text;
 import org.apache.hadoop.mapred.JobConf;
 import org.apache.hadoop.mapred.MapReduceBase;
 import org.apache.hadoop.mapred.OutputCollector;
@@ -30,7 +27,7 @@ import org.apache.hadoop.mapred.Reducer;
 import org.apache.hadoop.mapred.Reporter;
 
 public class AggregateReducer extends MapReduceBase 
-	implements Reducer<Text, DoubleWritable, Text, Text>
+	implements Reducer<ItemsetWritable, FrequencyListWritable, ItemsetWritable, FrequencyEstimateWritable>
 {
 	private int id;
 	private int reducersNum;
@@ -38,6 +35,8 @@ public class AggregateReducer extends MapReduceBase
 	private int sampleSize;
 	private float epsilon;
 	private boolean set;
+	private double[] freqs = new double[64];
+	private FrequencyEstimateWritable estimate = new FrequencyEstimateWritable();
 
 	@Override
 	public void configure(JobConf conf) 
@@ -53,8 +52,8 @@ public class AggregateReducer extends MapReduceBase
 
 
 	@Override
-	public void reduce(Text itemset, Iterator<DoubleWritable> values, 
-			OutputCollector<Text,Text> output, 
+	public void reduce(ItemsetWritable itemset, Iterator<FrequencyListWritable> values, 
+			OutputCollector<ItemsetWritable, FrequencyEstimateWritable> output, 
 			Reporter reporter) throws IOException
 	{
 		long startTime = System.currentTimeMillis();
@@ -65,54 +64,78 @@ public class AggregateReducer extends MapReduceBase
 			set = true;
 		}
 
-		ArrayList<Double> valuesArrList = new ArrayList<Double>(reqApproxNum);
+		// Each value holds the frequencies of the itemset output by one
+		// map task, packed by AggregateCombiner.
+		int valuesNum = 0;
 		while (values.hasNext()) 
 		{
-			valuesArrList.add(new Double(values.next().get()));
+			FrequencyListWritable value = values.next();
+			if (valuesNum + value.size() > freqs.length)
+			{
+				freqs = Arrays.copyOf(freqs, Math.max(valuesNum + value.size(), 2 * freqs.length));
+			}
+			System.arraycopy(value.get(), 0, freqs, valuesNum, value.size());
+			valuesNum += value.size();
 		}
-		//System.out.println("Itemset: " + itemset.toString() + " in: " + valuesArrList.size());
+		//System.out.println("Itemset: " + itemset.toString() + " in: " + valuesNum);
+		if (estimate(freqs, valuesNum, estimate))
+		{
+			output.collect(itemset, estimate);
+		}
+
+		long endTime = System.currentTimeMillis();
+		reporter.incrCounter("AggregateReducerEnd", String.valueOf(id), endTime-startTime);
+	}
+
+	/**
+	 * Set result to the global estimate of the frequency of an itemset
+	 * and its confidence interval, from its frequencies in the first
+	 * valuesNum elements of freqs (one per sample it is locally frequent
+	 * in). These may be in any order: they are sorted in place.
+	 *
+	 * @return false if the itemset is not global frequent, in which case
+	 * result is not modified.
+	 */
+	public boolean estimate(double[] freqs, int valuesNum, FrequencyEstimateWritable result)
+	{
 		/**
 		 * Only consider the itemset as "global frequent" if it
 		 * appears among the "local frequent" itemsets a sufficient
 		 * number of times.
 		 */
-		if (valuesArrList.size() >= reqApproxNum)
+		if (valuesNum < reqApproxNum)
 		{
-			Double[] valuesArr = new Double[valuesArrList.size()];
-			valuesArr = valuesArrList.toArray(valuesArr);
-			Arrays.sort(valuesArr);
+			return false;
+		}
+		Arrays.sort(freqs, 0, valuesNum);
 
-			/**
-			 * Compute the smallest frequency interval containing
-			 * reducersNum-requiredApproxNum+1 estimates of the
-			 * frequency of the itemset. Use the center of this
-			 * interval as global estimate for the frequency. The
-			 * confidence interval is obtained by enlarging the
-			 * above interval by epsilon/2 on both sides.
-			 */
-			double minIntervalLength = valuesArr[reducersNum-reqApproxNum] - valuesArr[0];
-			int startIndex = 0;
-			for (int i = 1; i < valuesArr.length - reducersNum + reqApproxNum; i++)
+		/**
+		 * Compute the smallest frequency interval containing
+		 * reducersNum-requiredApproxNum+1 estimates of the
+		 * frequency of the itemset. Use the center of this
+		 * interval as global estimate for the frequency. The
+		 * confidence interval is obtained by enlarging the
+		 * above interval by epsilon/2 on both sides.
+		 */
+		double minIntervalLength = freqs[reducersNum-reqApproxNum] - freqs[0];
+		int startIndex = 0;
+		for (int i = 1; i < valuesNum - reducersNum + reqApproxNum; i++)
+		{
+			double intervalLength = freqs[reducersNum-reqApproxNum + i] - freqs[i];
+			if (intervalLength < minIntervalLength) 
 			{
-				double intervalLength = valuesArr[reducersNum-reqApproxNum + i] - valuesArr[i];
-				if (intervalLength < minIntervalLength) 
-				{
-					minIntervalLength = intervalLength;
-					startIndex = i;
-				}
+				minIntervalLength = intervalLength;
+				startIndex = i;
 			}
-			
-			double estimatedFreq = (valuesArr[startIndex] + ((double) (valuesArr[startIndex + reducersNum -
-					 reqApproxNum] - valuesArr[startIndex])/2)) / sampleSize;
-			double confIntervalLowBound = Math.max(0, (((double)valuesArr[startIndex]) / sampleSize) - (epsilon / 2));
-			double confIntervalUppBound = Math.min(1, (((double)valuesArr[startIndex + reducersNum - reqApproxNum]) / sampleSize) + (epsilon / 2));
-			
-			String estFreqAndBoundsStr = "(" + estimatedFreq + "," + confIntervalLowBound + "," + confIntervalUppBound + ")"; 
-			output.collect(itemset, new Text(estFreqAndBoundsStr));
-		} // end if (valuesArrList.size() >= requiredNum)
+		}
 
-		long endTime = System.currentTimeMillis();
-		reporter.incrCounter("AggregateReducerEnd", String.valueOf(id), endTime-startTime);
+		double estimatedFreq = (freqs[startIndex] + ((freqs[startIndex + reducersNum -
+				 reqApproxNum] - freqs[startIndex])/2)) / sampleSize;
+		double confIntervalLowBound = Math.max(0, (freqs[startIndex] / sampleSize) - (epsilon / 2));
+		double confIntervalUppBound = Math.min(1, (freqs[startIndex + reducersNum - reqApproxNum] / sampleSize) + (epsilon / 2));
+
+		result.set(estimatedFreq, confIntervalLowBound, confIntervalUppBound);
+		return true;
 	}
 }
 
@@ -19,7 +19,6 @@ import java.io.IOException;
 
 import org.apache.hadoop.io.IntWritable;
 import org.apache.hadoop.io.LongWritable;
-import org.apache.hadoop.io.Text;
 import org.apache.hadoop.mapred.JobConf;
 import org.apache.hadoop.mapred.MapReduceBase;
 import org.apache.hadoop.mapred.Mapper;
@@ -29,39 +28,43 @@ import org.apache.hadoop.mapred.Reporter;
 import cern.jet.random.Binomial;
 
 public class BinomialSamplerMapper extends MapReduceBase 
-implements Mapper<LongWritable, Text, IntWritable, Text>
+implements Mapper<LongWritable, ItemsetWritable, IntWritable, ItemsetWritable>
 {
 	private int reducersNum;
 	private int datasetSize;
+	private WeightedItemsetWritable sampled = new WeightedItemsetWritable();
+	private CounterRandom rand;
+	private Binomial binomial;
 	
 	@Override
 	public void configure(JobConf conf) {
 		reducersNum = conf.getInt("PARMM.reducersNum", 64);
 		datasetSize = conf.getInt("PARMM.datasetSize", 1000);
+		rand = new CounterRandom(conf.getLong("PARMM.seed", 0), 0);
+		binomial = new Binomial(datasetSize / reducersNum, 1.0 / datasetSize,
+				new CounterRandomEngine(rand));
 	}
 	
 	
 	
 	@Override
-	public void map(LongWritable lineNum, Text value,
-					OutputCollector<IntWritable, Text> output, 
+	public void map(LongWritable lineNum, ItemsetWritable value,
+					OutputCollector<IntWritable, ItemsetWritable> output, 
 					Reporter reporter) throws IOException
 	{
+		// The draws only depend on the seed and on the transaction
+		rand.setStream(lineNum.get());
 		for (int i=0; i < reducersNum; i++)
 		{
-			int sampledTimes = Binomial.staticNextInt(
-													  datasetSize / reducersNum, 
-													  1.0 / datasetSize);
-			/**
-			 * XXX I assume there is a better way of doing
-			 * this, by only having one "message" sent to
-			 * reducer i, for example by making "value" an
-			 * object containing the fields "sampleTimes"
-			 * and "value". MR
+			int sampledTimes = binomial.nextInt();
+			/*
+			 * Send the transaction once to reducer i, with
+			 * the number of times it was sampled.
 			 */
-			for (int j=0; j < sampledTimes; j++)
+			if (sampledTimes > 0)
 			{
-				output.collect(new IntWritable(i), value);
+				sampled.set(value, sampledTimes);
+				output.collect(new IntWritable(i), sampled);
 			}
 		}
 	}
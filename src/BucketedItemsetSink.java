@@ -0,0 +1,247 @@
+/*
+ * Copyright 2012-14 Justin A. Debrabant <debrabant@cs.brown.edu> and Matteo Riondato <matteo@cs.brown.edu>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.DoubleWritable;
+import org.apache.hadoop.io.SequenceFile;
+import org.apache.hadoop.mapred.JobConf;
+
+import fim.fpgrowth.FrequentSetSink;
+
+/**
+ * Collects the frequent itemsets found by the FPtrees of a FIMReducer
+ * task and writes them hash-bucketed into bucketsNum SequenceFiles of
+ * (ItemsetWritable, DoubleWritable) records sorted by itemset, for the
+ * MergeAggregateMapper.
+ *
+ * An itemset goes to the bucket given by ItemsetWritable.hashCode(), as
+ * with the hash partitioner, so that all the local frequencies of an
+ * itemset are in the files of the same bucket, whatever the task. The
+ * itemsets are kept packed in int arrays until they take more than
+ * spillBytes, and are then written as a sorted run, one file per bucket,
+ * so the memory used does not grow with the number of local frequent
+ * itemsets. The runs of a task are merged with those of the other tasks
+ * by the MergeAggregateMapper. The last run is written by close().
+ */
+public class BucketedItemsetSink implements FrequentSetSink
+{
+	private final int bucketsNum;
+	private final long spillBytes;
+	private final FileSystem fs;
+	private final Path dir;
+	private final String name;
+	private final JobConf conf;
+	private int[] packed = new int[1024];
+	private int[] starts = new int[65];
+	private int[] supports = new int[64];
+	private int setsNum = 0;
+	private int runsNum = 0;
+
+	/**
+	 * The runs are written to dir/bucket-BBBBB-name-RRR, BBBBB being the
+	 * bucket number and RRR the run number.
+	 */
+	public BucketedItemsetSink(int bucketsNum, long spillBytes, FileSystem fs, Path dir, String name, JobConf conf)
+	{
+		this.bucketsNum = bucketsNum;
+		this.spillBytes = spillBytes;
+		this.fs = fs;
+		this.dir = dir;
+		this.name = name;
+		this.conf = conf;
+	}
+
+	@Override
+	public void addFrequentSet(int[] items, int length, int support) throws IOException
+	{
+		int start = starts[setsNum];
+		if (packed.length < start + length)
+		{
+			packed = Arrays.copyOf(packed, Math.max(start + length, 2 * packed.length));
+		}
+		if (supports.length == setsNum)
+		{
+			supports = Arrays.copyOf(supports, 2 * setsNum);
+			starts = Arrays.copyOf(starts, 2 * setsNum + 1);
+		}
+		System.arraycopy(items, 0, packed, start, length);
+		Arrays.sort(packed, start, start + length);
+		starts[setsNum + 1] = start + length;
+		supports[setsNum] = support;
+		setsNum++;
+
+		// Items, start and support of each itemset, 4 bytes each
+		if (4L * (starts[setsNum] + 2L * setsNum) >= spillBytes)
+		{
+			spill();
+		}
+	}
+
+	/**
+	 * Write the itemsets not written yet as the last run.
+	 */
+	public void close() throws IOException
+	{
+		if (setsNum > 0)
+		{
+			spill();
+		}
+	}
+
+	/**
+	 * Write the itemsets collected since the last run as a new run, and
+	 * empty the sink. No file is created for empty buckets.
+	 */
+	private void spill() throws IOException
+	{
+		// Group the itemsets by bucket (counting sort)
+		int[] buckets = new int[setsNum];
+		int[] bucketStarts = new int[bucketsNum + 1];
+		for (int i = 0; i < setsNum; i++)
+		{
+			buckets[i] = bucket(i);
+			bucketStarts[buckets[i] + 1]++;
+		}
+		for (int b = 0; b < bucketsNum; b++)
+		{
+			bucketStarts[b + 1] += bucketStarts[b];
+		}
+		int[] order = new int[setsNum];
+		int[] next = Arrays.copyOf(bucketStarts, bucketsNum);
+		for (int i = 0; i < setsNum; i++)
+		{
+			order[next[buckets[i]]++] = i;
+		}
+		buckets = null;
+
+		ItemsetWritable itemset = new ItemsetWritable();
+		DoubleWritable support = new DoubleWritable();
+		int[] items = new int[16];
+		int[] tmp = new int[setsNum];
+		for (int b = 0; b < bucketsNum; b++)
+		{
+			if (bucketStarts[b] == bucketStarts[b + 1])
+			{
+				continue;
+			}
+			sort(order, tmp, bucketStarts[b], bucketStarts[b + 1]);
+			Path path = new Path(dir, String.format("bucket-%05d-%s-%03d", b, name, runsNum));
+			SequenceFile.Writer writer = SequenceFile.createWriter(fs, conf, path,
+					ItemsetWritable.class, DoubleWritable.class);
+			try
+			{
+				for (int k = bucketStarts[b]; k < bucketStarts[b + 1]; k++)
+				{
+					int i = order[k];
+					int length = starts[i + 1] - starts[i];
+					if (items.length < length)
+					{
+						items = new int[Math.max(length, 2 * items.length)];
+					}
+					System.arraycopy(packed, starts[i], items, 0, length);
+					itemset.set(items, length);
+					support.set(supports[i]);
+					writer.append(itemset, support);
+				}
+			}
+			finally
+			{
+				writer.close();
+			}
+		}
+		runsNum++;
+		setsNum = 0;
+	}
+
+	/** The bucket of the i-th itemset, from the hash of its items. */
+	private int bucket(int i)
+	{
+		int hash = 1;
+		for (int k = starts[i]; k < starts[i + 1]; k++)
+		{
+			hash = 31 * hash + packed[k];
+		}
+		return (hash & Integer.MAX_VALUE) % bucketsNum;
+	}
+
+	/**
+	 * Merge sort of order[from, to) by itemset, in the order of
+	 * ItemsetWritable.compareTo(), using tmp[from, to).
+	 */
+	private void sort(int[] order, int[] tmp, int from, int to)
+	{
+		if (to - from < 16)
+		{
+			// Insertion sort
+			for (int k = from + 1; k < to; k++)
+			{
+				int i = order[k];
+				int l = k;
+				while (l > from && compare(order[l - 1], i) > 0)
+				{
+					order[l] = order[l - 1];
+					l--;
+				}
+				order[l] = i;
+			}
+			return;
+		}
+		int mid = (from + to) >>> 1;
+		sort(order, tmp, from, mid);
+		sort(order, tmp, mid, to);
+		if (compare(order[mid - 1], order[mid]) <= 0)
+		{
+			return;
+		}
+		System.arraycopy(order, from, tmp, from, to - from);
+		int left = from;
+		int right = mid;
+		for (int k = from; k < to; k++)
+		{
+			if (right >= to || (left < mid && compare(tmp[left], tmp[right]) <= 0))
+			{
+				order[k] = tmp[left++];
+			}
+			else
+			{
+				order[k] = tmp[right++];
+			}
+		}
+	}
+
+	/** Compare the i-th and the j-th itemsets as ItemsetWritable does. */
+	private int compare(int i, int j)
+	{
+		int sizeI = starts[i + 1] - starts[i];
+		int sizeJ = starts[j + 1] - starts[j];
+		int length = Math.min(sizeI, sizeJ);
+		for (int k = 0; k < length; k++)
+		{
+			int itemI = packed[starts[i] + k];
+			int itemJ = packed[starts[j] + k];
+			if (itemI != itemJ)
+			{
+				return itemI < itemJ ? -1 : 1;
+			}
+		}
+		return sizeI < sizeJ ? -1 : (sizeI == sizeJ ? 0 : 1);
+	}
+}
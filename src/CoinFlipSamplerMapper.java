@@ -14,56 +14,172 @@
  * limitations under the License.
  *
  */
-
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Hashtable;
-import java.util.Random;
 
-import org.apache.hadoop.filecache.DistributedCache;
-import org.apache.hadoop.fs.FileSystem;
-import org.apache.hadoop.fs.Path;
-import org.apache.hadoop.io.ArrayWritable;
 import org.apache.hadoop.io.IntWritable;
-import org.apache.hadoop.io.IOUtils;
 import org.apache.hadoop.io.LongWritable;
-import org.apache.hadoop.io.MapFile;
-import org.apache.hadoop.io.Text;
-import org.apache.hadoop.io.Writable;
 import org.apache.hadoop.mapred.JobConf;
 import org.apache.hadoop.mapred.MapReduceBase;
 import org.apache.hadoop.mapred.Mapper;
 import org.apache.hadoop.mapred.OutputCollector;
 import org.apache.hadoop.mapred.Reporter;
-import org.apache.hadoop.util.ReflectionUtils;
 
+/**
+ * Sends each transaction to each sample independently with probability
+ * 1/datasetSize.
+ *
+ * Instead of flipping reducersNum coins per transaction, each sample
+ * draws the gap to the next selected transaction id from a geometric
+ * distribution, so the generator is only used when a transaction is
+ * selected and the other records are passed over with a single
+ * comparison.
+ *
+ * The gaps of a sample are drawn from a CounterRandom stream keyed by
+ * the sample and by a fixed-size block of transaction ids, restarting
+ * at the beginning of each block. The selected ids thus do not depend
+ * on the split boundaries, and a task starting in the middle of a block
+ * replays the gaps from the start of the block, i.e. about
+ * BLOCK_SIZE/datasetSize draws per sample.
+ */
 public class CoinFlipSamplerMapper extends MapReduceBase 
-implements Mapper<LongWritable, Text, IntWritable, Text>
+implements Mapper<LongWritable, ItemsetWritable, IntWritable, ItemsetWritable>
 {
+	private static final long BLOCK_SIZE = 1 << 16;
+
+	private int id;
 	private int reducersNum;
 	private int datasetSize;
+	private double logFailure;
+	private CounterRandom[] rands;
+	private long[] blocks;
+	private long[] nextIDs;
+	private long minNextID;
+	private long lastID;
+	private Reporter reporter;
+	private IntWritable sampleID = new IntWritable();
 	
 	@Override
 	public void configure(JobConf conf) {
+		id = conf.getInt("mapred.task.partition", -1);
 		reducersNum = conf.getInt("PARMM.reducersNum", 64);
 		datasetSize = conf.getInt("PARMM.datasetSize", 1000);
+		logFailure = Math.log1p(-1.0 / datasetSize);
+		long seed = conf.getLong("PARMM.seed", 0);
+		rands = new CounterRandom[reducersNum];
+		for (int i = 0; i < reducersNum; i++)
+		{
+			rands[i] = new CounterRandom(seed, 0);
+		}
+		blocks = new long[reducersNum];
+		nextIDs = new long[reducersNum];
+		lastID = Long.MAX_VALUE;
+		reporter = null;
 	}
 	
 	@Override
-	public void map(LongWritable lineNum, Text value,
-					OutputCollector<IntWritable, Text> output, 
+	public void map(LongWritable lineNum, ItemsetWritable value,
+					OutputCollector<IntWritable, ItemsetWritable> output, 
 					Reporter reporter) throws IOException
 	{
-		Random rand = new Random();
-		
-		for (int i=0; i < reducersNum; i++)
+		long transactionID = lineNum.get();
+		if (this.reporter == null)
+		{
+			// close() gets no Reporter, keep this one for the end time.
+			this.reporter = reporter;
+			reporter.incrCounter("FIMMapperStart", String.valueOf(id), System.currentTimeMillis());
+		}
+		if (transactionID < lastID)
 		{
-			double f = rand.nextDouble();
-			if (f <= 1.0 / datasetSize)
+			// First record of the split (or ids not increasing):
+			// position every sample at this id.
+			for (int i = 0; i < reducersNum; i++)
 			{
-				output.collect(new IntWritable(i),
-							   value);
+				startBlock(i, transactionID / BLOCK_SIZE);
+				seek(i, transactionID);
 			}
+			updateMinNextID();
+		}
+		lastID = transactionID;
+
+		if (transactionID < minNextID)
+		{
+			return;
 		}
+		for (int i = 0; i < reducersNum; i++)
+		{
+			if (nextIDs[i] == transactionID)
+			{
+				sampleID.set(i);
+				output.collect(sampleID, value);
+			}
+			if (nextIDs[i] <= transactionID)
+			{
+				seek(i, transactionID + 1);
+			}
+		}
+		updateMinNextID();
 	}
+
+	@Override
+	public void close() throws IOException
+	{
+		if (reporter != null)
+		{
+			reporter.incrCounter("FIMMapperEnd", String.valueOf(id), System.currentTimeMillis());
+		}
+	}
+
+	/**
+	 * Restart the gaps of the given sample at the beginning of the given
+	 * block of ids.
+	 */
+	private void startBlock(int sample, long block)
+	{
+		blocks[sample] = block;
+		rands[sample].setStream(block * reducersNum + sample);
+		nextIDs[sample] = block * BLOCK_SIZE + drawGap(sample);
+	}
+
+	/**
+	 * Move the given sample to its first selected id not smaller than
+	 * fromID.
+	 */
+	private void seek(int sample, long fromID)
+	{
+		while (true)
+		{
+			if (nextIDs[sample] >= (blocks[sample] + 1) * BLOCK_SIZE)
+			{
+				// The gap went past the block: continue in the next one.
+				startBlock(sample, blocks[sample] + 1);
+			}
+			else if (nextIDs[sample] < fromID)
+			{
+				nextIDs[sample] += 1 + drawGap(sample);
+			}
+			else
+			{
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Number of failed coin flips before the next success.
+	 */
+	private long drawGap(int sample)
+	{
+		// 1 - nextDouble() is in (0,1], so the log is finite.
+		double u = 1.0 - rands[sample].nextDouble();
+		return (long) Math.floor(Math.log(u) / logFailure);
+	}
+
+	private void updateMinNextID()
+	{
+		minNextID = Long.MAX_VALUE;
+		for (int i = 0; i < reducersNum; i++)
+		{
+			minNextID = Math.min(minNextID, nextIDs[i]);
+		}
 	}
+}
@@ -19,7 +19,6 @@ import java.io.IOException;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.io.DoubleWritable;
-import org.apache.hadoop.io.Text;
 import org.apache.hadoop.mapred.FileSplit;
 import org.apache.hadoop.mapred.InputSplit;
 import org.apache.hadoop.mapred.JobConf;
@@ -30,12 +29,12 @@ import org.apache.hadoop.mapred.lib.CombineFileInputFormat;
 import org.apache.hadoop.mapred.lib.CombineFileRecordReader;
 import org.apache.hadoop.mapred.lib.CombineFileSplit;
 
-public class CombineSequenceFileInputFormat extends CombineFileInputFormat<Text,DoubleWritable>
+public class CombineSequenceFileInputFormat extends CombineFileInputFormat<ItemsetWritable,DoubleWritable>
 {
 
-	public static class CombineSequenceFileRecordReader implements RecordReader<Text,DoubleWritable>
+	public static class CombineSequenceFileRecordReader implements RecordReader<ItemsetWritable,DoubleWritable>
 	{
-		private final RecordReader<Text,DoubleWritable> reader;
+		private final RecordReader<ItemsetWritable,DoubleWritable> reader;
 
 		public CombineSequenceFileRecordReader(CombineFileSplit split,
 		    Configuration conf, Reporter reporter, Integer index) throws IOException
@@ -43,16 +42,16 @@ public class CombineSequenceFileInputFormat extends CombineFileInputFormat<Text,
 			FileSplit fileSplit = new FileSplit(split.getPath(index),
 			      split.getOffset(index), split.getLength(index),
 			      split.getLocations());
-			reader = new SequenceFileRecordReader<Text,DoubleWritable>(conf, fileSplit);
+			reader = new SequenceFileRecordReader<ItemsetWritable,DoubleWritable>(conf, fileSplit);
 		}
 
 		@Override
-		  public boolean next(Text key, DoubleWritable value) throws IOException
+		  public boolean next(ItemsetWritable key, DoubleWritable value) throws IOException
 		  {
 		  	return reader.next(key, value);
 		  }
 
-		@Override public Text createKey()
+		@Override public ItemsetWritable createKey()
 		{
 		  	return reader.createKey();
 		}
@@ -77,12 +76,12 @@ public class CombineSequenceFileInputFormat extends CombineFileInputFormat<Text,
 
 
   	@Override
-	public RecordReader<Text,DoubleWritable> getRecordReader(InputSplit split, JobConf job, Reporter reporter)
+	public RecordReader<ItemsetWritable,DoubleWritable> getRecordReader(InputSplit split, JobConf job, Reporter reporter)
 	{
-	  CombineFileRecordReader<Text,DoubleWritable> reader = null;
+	  CombineFileRecordReader<ItemsetWritable,DoubleWritable> reader = null;
 	  try
 	  {
-	    	reader = new CombineFileRecordReader<Text,DoubleWritable>(job, (CombineFileSplit) split, reporter, (Class) CombineSequenceFileRecordReader.class);
+	    	reader = new CombineFileRecordReader<ItemsetWritable,DoubleWritable>(job, (CombineFileSplit) split, reporter, (Class) CombineSequenceFileRecordReader.class);
 	  }
 	  catch (IOException e) {}
 	  return reader;
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2012-14 Justin A. Debrabant <debrabant@cs.brown.edu> and Matteo Riondato <matteo@cs.brown.edu>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import java.util.Random;
+
+import org.apache.hadoop.mapred.JobConf;
+
+/**
+ * A counter-based pseudo-random number generator: the i-th number of a
+ * stream is a hash (the SplitMix64 finalizer) of the stream key and of
+ * i. The key is derived from the job seed and a stream id, e.g. a task
+ * id or the id of a record.
+ *
+ * The numbers drawn only depend on (seed, stream id, position in the
+ * stream), not on the order in which records or tasks are processed,
+ * so a re-executed or speculative task draws exactly the same sample.
+ * Streams can be repositioned cheaply with setStream(), without
+ * allocating a new generator for each record.
+ *
+ * It extends java.util.Random so that it can be passed to the methods
+ * that take one, e.g. Collections.shuffle().
+ */
+public class CounterRandom extends Random
+{
+	private static final long serialVersionUID = 1L;
+
+	/** Odd constant of the golden ratio, as in SplitMix64. */
+	private static final long GAMMA = 0x9E3779B97F4A7C15L;
+
+	/**
+	 * Stream used by the driver. The mappers use record ids and task
+	 * ids, which are non-negative.
+	 */
+	public static final long DRIVER_STREAM = -1;
+
+	private long seed;
+	private long key;
+	private long counter;
+
+	public CounterRandom(long seed, long stream)
+	{
+		super(0);
+		this.seed = seed;
+		setStream(stream);
+	}
+
+	/**
+	 * Restart the generator at the beginning of the given stream of the
+	 * same seed.
+	 */
+	public void setStream(long stream)
+	{
+		key = mix(mix(seed) + stream * GAMMA);
+		counter = 0;
+	}
+
+	@Override
+	public long nextLong()
+	{
+		counter++;
+		return mix(key + counter * GAMMA);
+	}
+
+	@Override
+	protected int next(int bits)
+	{
+		return (int) (nextLong() >>> (64 - bits));
+	}
+
+	private static long mix(long z)
+	{
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	/**
+	 * The seed of the job, from "PARMM.seed". If it is not set, a new
+	 * one is chosen and stored in the configuration, so that the driver
+	 * and all the tasks use the same one.
+	 */
+	public static long getJobSeed(JobConf conf)
+	{
+		if (conf.get("PARMM.seed") == null)
+		{
+			conf.setLong("PARMM.seed", System.nanoTime() ^ new Random().nextLong());
+		}
+		return conf.getLong("PARMM.seed", 0);
+	}
+}
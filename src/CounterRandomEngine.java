@@ -15,15 +15,26 @@
  *
  */
 
-import org.apache.hadoop.io.ArrayWritable;
-import org.apache.hadoop.io.Text;
+import cern.jet.random.engine.RandomEngine;
 
-public class TextArrayWritable extends ArrayWritable 
-{ 
-	public TextArrayWritable() 
-	{
-		super(Text.class); 
-	} 
-} 
+/**
+ * Lets the colt distributions (e.g. Binomial) draw their numbers from a
+ * CounterRandom instead of their shared, unseeded, engine.
+ */
+public class CounterRandomEngine extends RandomEngine
+{
+	private static final long serialVersionUID = 1L;
 
+	private final CounterRandom rand;
 
+	public CounterRandomEngine(CounterRandom rand)
+	{
+		this.rand = rand;
+	}
+
+	@Override
+	public int nextInt()
+	{
+		return rand.nextInt();
+	}
+}
@@ -18,14 +18,14 @@
 import java.io.BufferedWriter;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.Random;
 
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.DoubleWritable;
 import org.apache.hadoop.io.IntWritable;
-import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapred.FileOutputFormat;
 import org.apache.hadoop.mapred.JobConf;
 import org.apache.hadoop.mapred.MapReduceBase;
 import org.apache.hadoop.mapred.OutputCollector;
@@ -34,13 +34,18 @@ import org.apache.hadoop.mapred.Reporter;
 
 import fim.fpgrowth.*; 
 
-public class FIMReducer extends MapReduceBase implements Reducer<IntWritable, Text, Text, DoubleWritable>
+public class FIMReducer extends MapReduceBase implements Reducer<IntWritable, ItemsetWritable, ItemsetWritable, DoubleWritable>
 {
 	private int minFreqPercent;
 	private int sampleSize;
 	private int id;
 	private float epsilon;
+	private int miningThreads;
+	private int[] rankedItems;
 	private boolean set;
+	private JobConf conf;
+	private boolean mergeAggregation;
+	private BucketedItemsetSink buckets;
 
 	@Override
 	public void configure(JobConf conf) 
@@ -48,13 +53,35 @@ public class FIMReducer extends MapReduceBase implements Reducer<IntWritable, Te
 		minFreqPercent = conf.getInt("PARMM.minFreqPercent", 20); 
 		sampleSize = conf.getInt("PARMM.sampleSize", 1000);
 		epsilon = conf.getFloat("PARMM.epsilon", 0.05f);
+		miningThreads = conf.getInt("PARMM.miningThreads", 1);
 		id = conf.getInt("mapred.task.partition", -1);
 		set = false;
+		this.conf = conf;
+
+		// With PARMM.mergeAggregation the itemsets are written to sorted
+		// bucket files, merged by the MergeAggregateMapper, instead of
+		// being emitted.
+		mergeAggregation = conf.getBoolean("PARMM.mergeAggregation", false);
+		buckets = null;
+
+		// Global item ranking, computed by the item count pre-pass
+		rankedItems = null;
+		if (conf.getBoolean("PARMM.globalRanks", false))
+		{
+			try
+			{
+				rankedItems = ItemRanks.readFromCache(conf);
+			}
+			catch (IOException e)
+			{
+				System.err.println(e.getMessage());
+			}
+		}
 	}
 
 	@Override
-	public void reduce(IntWritable key, Iterator<Text> values, 
-			OutputCollector<Text,DoubleWritable> output, 
+	public void reduce(IntWritable key, Iterator<ItemsetWritable> values, 
+			OutputCollector<ItemsetWritable,DoubleWritable> output, 
 			Reporter reporter) throws IOException
 	{			
 		long startTime = System.currentTimeMillis();
@@ -65,25 +92,153 @@ public class FIMReducer extends MapReduceBase implements Reducer<IntWritable, Te
 			set = true;
 		}
 
-		// This is a very crappy way of checking whether we got the
-		// right number of transactions. It may not be too inefficient
-		// though.
-		ArrayList<Text> transactions = new ArrayList<Text>(sampleSize);
-		while (values.hasNext())
+		FrequentSetSink sink;
+		if (mergeAggregation)
 		{
-			Text trans = new Text(values.next().toString());
-			transactions.add(trans);
+			if (buckets == null)
+			{
+				// Side files of the task, promoted to the output
+				// directory when it commits.
+				Path dir = FileOutputFormat.getWorkOutputPath(conf);
+				buckets = new BucketedItemsetSink(conf.getInt("PARMM.aggrBuckets", 1),
+						conf.getLong("PARMM.aggrSpillBytes", 64L << 20),
+						dir.getFileSystem(conf), dir, String.format("%05d", id), conf);
+			}
+			sink = buckets;
 		}
-		if (sampleSize != transactions.size())
+		else
 		{
-			System.out.println("WRONG NUMBER OF TRANSACTIONS!");
+			sink = new ItemsetSink(output);
+		}
+		if (rankedItems != null)
+		{
+			reduceRanked(values, sink);
+		}
+		else
+		{
+			reduceUnranked(values, sink);
 		}
-		System.out.println("samplesize: " + sampleSize + " received: " + transactions.size());
-	  	FPgrowth.mineFrequentItemsets(transactions.iterator(), transactions.size(), minFreqPercent - (epsilon * 50) , output);
-		
+
 		long endTime = System.currentTimeMillis();
 		reporter.incrCounter("FIMReducerEnd", String.valueOf(id), endTime-startTime);
 	}
+
+	@Override
+	public void close() throws IOException
+	{
+		if (buckets != null)
+		{
+			buckets.close();
+			buckets = null;
+		}
+	}
+
+	/**
+	 * Build the FP-tree in a single pass over the values, with the items
+	 * ordered by the global ranking.
+	 */
+	private void reduceRanked(Iterator<ItemsetWritable> values,
+			FrequentSetSink sink) throws IOException
+	{
+		FPtree fpTree = new FPtree(rankedItems, minFreqPercent - (epsilon * 50));
+		int received = 0;
+		while (values.hasNext())
+		{
+			ItemsetWritable transaction = values.next();
+			int count = 1;
+			if (transaction instanceof WeightedItemsetWritable)
+			{
+				count = ((WeightedItemsetWritable) transaction).getCount();
+			}
+			fpTree.addToFPtree(transaction.getItems(), transaction.size(), count);
+			received += count;
+		}
+		checkReceived(received);
+		fpTree.finishFPtree();
+		FPgrowth.mineFPtree(fpTree, sink, miningThreads);
+	}
+
+	/**
+	 * Build the FP-tree with the items ordered by their frequency in the
+	 * sample, which is only known after all the values have been seen.
+	 * The values are reused by the framework, so their items are packed
+	 * one after the other in a single array, from which the FP-tree is
+	 * then built as in reduceRanked().
+	 */
+	private void reduceUnranked(Iterator<ItemsetWritable> values,
+			FrequentSetSink sink) throws IOException
+	{
+		int[] packed = new int[8 * sampleSize];
+		int packedSize = 0;
+		int[] ends = new int[sampleSize];
+		int[] counts = new int[sampleSize];
+		int transactionsNum = 0;
+		long[] itemCounts = new long[1024];
+		int received = 0;
+		while (values.hasNext())
+		{
+			ItemsetWritable transaction = values.next();
+			// Values from the BinomialSamplerMapper carry the number of
+			// times the transaction was sampled.
+			int count = 1;
+			if (transaction instanceof WeightedItemsetWritable)
+			{
+				count = ((WeightedItemsetWritable) transaction).getCount();
+			}
+			int[] items = transaction.getItems();
+			int size = transaction.size();
+			if (packed.length < packedSize + size)
+			{
+				packed = Arrays.copyOf(packed, Math.max(packedSize + size, 2 * packed.length));
+			}
+			for (int i = 0; i < size; i++)
+			{
+				int item = items[i];
+				if (item >= itemCounts.length)
+				{
+					itemCounts = Arrays.copyOf(itemCounts, Math.max(item + 1, 2 * itemCounts.length));
+				}
+				itemCounts[item] += count;
+				packed[packedSize++] = item;
+			}
+			if (transactionsNum == ends.length)
+			{
+				ends = Arrays.copyOf(ends, 2 * ends.length + 1);
+				counts = Arrays.copyOf(counts, ends.length);
+			}
+			ends[transactionsNum] = packedSize;
+			counts[transactionsNum] = count;
+			transactionsNum++;
+			received += count;
+		}
+		checkReceived(received);
+
+		// Only rank the items that are frequent in the sample, with the
+		// min support computed as the FPtree does.
+		float minFreq = minFreqPercent - (epsilon * 50);
+		long minCount = Math.max(1, (long) Math.ceil((received * (double) minFreq) / 100.0));
+		FPtree fpTree = new FPtree(ItemRanks.rank(itemCounts, minCount), minFreq);
+		int start = 0;
+		for (int i = 0; i < transactionsNum; i++)
+		{
+			fpTree.addToFPtree(packed, start, ends[i] - start, counts[i]);
+			start = ends[i];
+		}
+		packed = null;
+		ends = null;
+		counts = null;
+		fpTree.finishFPtree();
+		FPgrowth.mineFPtree(fpTree, sink, miningThreads);
+	}
+
+	private void checkReceived(int received)
+	{
+		if (sampleSize != received)
+		{
+			System.out.println("WRONG NUMBER OF TRANSACTIONS!");
+		}
+		System.out.println("samplesize: " + sampleSize + " received: " + received);
+	}
 }
 
 
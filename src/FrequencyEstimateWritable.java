@@ -0,0 +1,81 @@
+/*
+ * Copyright 2012-14 Justin A. Debrabant <debrabant@cs.brown.edu> and Matteo Riondato <matteo@cs.brown.edu>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import org.apache.hadoop.io.Writable;
+
+/**
+ * The global estimate of the frequency of an itemset with the bounds of
+ * its confidence interval, as computed by AggregateReducer.
+ *
+ * Serialized as three doubles. toString() gives the textual format of
+ * the global frequent itemsets, "(estimate,lower bound,upper bound)",
+ * so TextOutputFormat writes the same lines as before.
+ */
+public class FrequencyEstimateWritable implements Writable
+{
+	private double estimate;
+	private double lowerBound;
+	private double upperBound;
+
+	public void set(double estimate, double lowerBound, double upperBound)
+	{
+		this.estimate = estimate;
+		this.lowerBound = lowerBound;
+		this.upperBound = upperBound;
+	}
+
+	public double getEstimate()
+	{
+		return estimate;
+	}
+
+	public double getLowerBound()
+	{
+		return lowerBound;
+	}
+
+	public double getUpperBound()
+	{
+		return upperBound;
+	}
+
+	@Override
+	public void write(DataOutput out) throws IOException
+	{
+		out.writeDouble(estimate);
+		out.writeDouble(lowerBound);
+		out.writeDouble(upperBound);
+	}
+
+	@Override
+	public void readFields(DataInput in) throws IOException
+	{
+		estimate = in.readDouble();
+		lowerBound = in.readDouble();
+		upperBound = in.readDouble();
+	}
+
+	@Override
+	public String toString()
+	{
+		return "(" + estimate + "," + lowerBound + "," + upperBound + ")";
+	}
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2012-14 Justin A. Debrabant <debrabant@cs.brown.edu> and Matteo Riondato <matteo@cs.brown.edu>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableUtils;
+
+/**
+ * The frequencies of an itemset in some of the samples it is locally
+ * frequent in, as a list of doubles.
+ *
+ * Serialized as the number of frequencies, as a variable-length integer,
+ * followed by the frequencies. Like ItemsetWritable, instances are meant
+ * to be reused: the internal array is only reallocated when it is too
+ * small, so get() may return an array longer than size().
+ */
+public class FrequencyListWritable implements Writable
+{
+	private double[] freqs;
+	private int size;
+
+	public FrequencyListWritable()
+	{
+		freqs = new double[4];
+		size = 0;
+	}
+
+	/** Set the content to the single given frequency. */
+	public void set(double freq)
+	{
+		freqs[0] = freq;
+		size = 1;
+	}
+
+	/** Remove all the frequencies. */
+	public void clear()
+	{
+		size = 0;
+	}
+
+	/** Append the frequencies of the given list. */
+	public void addAll(FrequencyListWritable other)
+	{
+		ensureCapacity(size + other.size);
+		System.arraycopy(other.freqs, 0, freqs, size, other.size);
+		size += other.size;
+	}
+
+	/**
+	 * The internal array. Only its first size() elements are
+	 * frequencies.
+	 */
+	public double[] get()
+	{
+		return freqs;
+	}
+
+	public int size()
+	{
+		return size;
+	}
+
+	private void ensureCapacity(int capacity)
+	{
+		if (freqs.length < capacity)
+		{
+			freqs = Arrays.copyOf(freqs, Math.max(capacity, 2 * freqs.length));
+		}
+	}
+
+	@Override
+	public void write(DataOutput out) throws IOException
+	{
+		WritableUtils.writeVInt(out, size);
+		for (int i = 0; i < size; i++)
+		{
+			out.writeDouble(freqs[i]);
+		}
+	}
+
+	@Override
+	public void readFields(DataInput in) throws IOException
+	{
+		size = WritableUtils.readVInt(in);
+		ensureCapacity(size);
+		for (int i = 0; i < size; i++)
+		{
+			freqs[i] = in.readDouble();
+		}
+	}
+
+	@Override
+	public String toString()
+	{
+		StringBuilder sb = new StringBuilder("[");
+		for (int i = 0; i < size; i++)
+		{
+			if (i > 0)
+			{
+				sb.append(',');
+			}
+			sb.append(freqs[i]);
+		}
+		return sb.append(']').toString();
+	}
+}
@@ -15,45 +15,30 @@
  *
  */
 
-import java.io.BufferedInputStream;
-import java.io.DataInputStream;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Hashtable;
-import java.util.Random;
 
-import org.apache.hadoop.filecache.DistributedCache;
-import org.apache.hadoop.fs.FSDataInputStream;
-import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.IntWritable;
-import org.apache.hadoop.io.IOUtils;
 import org.apache.hadoop.io.LongWritable;
-import org.apache.hadoop.io.MapWritable;
-import org.apache.hadoop.io.Text;
-import org.apache.hadoop.io.Writable;
 import org.apache.hadoop.mapred.JobConf;
 import org.apache.hadoop.mapred.MapReduceBase;
 import org.apache.hadoop.mapred.Mapper;
 import org.apache.hadoop.mapred.OutputCollector;
 import org.apache.hadoop.mapred.Reporter;
-import org.apache.hadoop.util.ReflectionUtils;
 
 public class InputSamplerMapper extends MapReduceBase implements
-	Mapper<LongWritable, Text, IntWritable, Text>
+	Mapper<LongWritable, ItemsetWritable, IntWritable, ItemsetWritable>
 {
 	private int id;
-	private MapWritable map;
+	private SamplesIndex index;
+	private IntWritable sampleID = new IntWritable();
 		
 	@Override
 	public void configure(JobConf conf) 
 	{ 
 		id = conf.getInt("mapred.task.partition", -1);
 		try {
-			map = new MapWritable();
-			Path[] localFiles = DistributedCache.getLocalCacheFiles(conf);
-			BufferedInputStream in = new BufferedInputStream(new FileInputStream(localFiles[0].toString()));
-			map.readFields(new DataInputStream(in));
+			// Memory-mapped, so nothing is loaded on the heap here.
+			index = SamplesIndex.openFromCache(conf);
 		} catch (IOException e) 
 		{ 
 		  	System.err.println(e.getMessage());
@@ -61,20 +46,21 @@ public class InputSamplerMapper extends MapReduceBase implements
 	}
 	
 	@Override
-	public void map(LongWritable key, Text value,
-			OutputCollector<IntWritable, Text> output, Reporter
+	public void map(LongWritable key, ItemsetWritable value,
+			OutputCollector<IntWritable, ItemsetWritable> output, Reporter
 			reporter) throws IOException
 	{
 		reporter.incrCounter("FIMMapperStart", String.valueOf(id), System.currentTimeMillis());
-	  	IntArrayWritable arr = (IntArrayWritable) map.get(key);
-		if (arr != null) 
+		int pos = index.find(key.get());
+		if (pos != -1) 
 		{
-		  	for(Writable element : arr.get()) 
+			int end = index.getEnd(pos);
+		  	for (int i = index.getStart(pos); i < end; i++) 
 			{
-				output.collect((IntWritable) element, value);
+				sampleID.set(index.getSample(i));
+				output.collect(sampleID, value);
 			}
 		}
 		reporter.incrCounter("FIMMapperEnd", String.valueOf(id), System.currentTimeMillis());
 	}
 }
-
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2012-14 Justin A. Debrabant <debrabant@cs.brown.edu> and Matteo Riondato <matteo@cs.brown.edu>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.mapred.MapReduceBase;
+import org.apache.hadoop.mapred.Mapper;
+import org.apache.hadoop.mapred.OutputCollector;
+import org.apache.hadoop.mapred.Reporter;
+
+/**
+ * Map of the item count pre-pass: counts the transactions of the split
+ * containing each item and emits the counts when the split is done, so
+ * that only one record per distinct item leaves the task.
+ */
+public class ItemCountMapper extends MapReduceBase
+implements Mapper<LongWritable, ItemsetWritable, IntWritable, LongWritable>
+{
+	private long[] counts = new long[1024];
+	private OutputCollector<IntWritable, LongWritable> output;
+
+	@Override
+	public void map(LongWritable lineNum, ItemsetWritable transaction,
+					OutputCollector<IntWritable, LongWritable> output,
+					Reporter reporter) throws IOException
+	{
+		this.output = output;
+		int[] items = transaction.getItems();
+		for (int i = 0; i < transaction.size(); i++)
+		{
+			if (items[i] >= counts.length)
+			{
+				counts = Arrays.copyOf(counts, Math.max(items[i] + 1, 2 * counts.length));
+			}
+			counts[items[i]]++;
+		}
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		if (output == null)
+		{
+			return;
+		}
+		IntWritable item = new IntWritable();
+		LongWritable count = new LongWritable();
+		for (int i = 0; i < counts.length; i++)
+		{
+			if (counts[i] > 0)
+			{
+				item.set(i);
+				count.set(counts[i]);
+				output.collect(item, count);
+			}
+		}
+	}
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2012-14 Justin A. Debrabant <debrabant@cs.brown.edu> and Matteo Riondato <matteo@cs.brown.edu>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+
+import org.apache.hadoop.filecache.DistributedCache;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.mapred.JobConf;
+
+/**
+ * The items of the whole dataset ranked by decreasing frequency (ties
+ * broken by item id), computed by the optional item count pre-pass
+ * and shipped through the DistributedCache.
+ *
+ * With "PARMM.globalRanks" the FIMReducers build their FP-trees
+ * directly in this order instead of each ranking the items of its own
+ * sample. With "PARMM.pruneItems" only the items that can be frequent
+ * in a sample are ranked (with high probability, see
+ * MRDriver.getMinItemCount()), and the items that are not are removed from
+ * the transactions before the shuffle (see PruningCollector).
+ *
+ * Format (big-endian, as written by DataOutputStream):
+ *   int    ranksNum                number of distinct items
+ *   int    items[ranksNum]         the items, most frequent first
+ */
+public class ItemRanks
+{
+	/**
+	 * Read the ranking in the given file.
+	 *
+	 * @return the items in rank order, starting at index 1 as expected
+	 * by the FPtree (index 0 is unused).
+	 */
+	public static int[] read(File file) throws IOException
+	{
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+		try
+		{
+			int ranksNum = in.readInt();
+			int[] rankedItems = new int[ranksNum + 1];
+			for (int i = 1; i <= ranksNum; i++)
+			{
+				rankedItems[i] = in.readInt();
+			}
+			return rankedItems;
+		}
+		finally
+		{
+			in.close();
+		}
+	}
+
+	/**
+	 * Read the ranking shipped in the DistributedCache of the task.
+	 *
+	 * @return the items in rank order as returned by read(), or null if
+	 * there is no ranking.
+	 */
+	public static int[] readFromCache(JobConf conf) throws IOException
+	{
+		Path[] localFiles = DistributedCache.getLocalCacheFiles(conf);
+		if (localFiles != null)
+		{
+			for (Path localFile : localFiles)
+			{
+				if (localFile.getName().startsWith("itemRanks"))
+				{
+					return read(new File(localFile.toString()));
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Rank the items with the given counts. counts[i] is the number of
+	 * transactions containing item i, items with a count smaller than
+	 * minCount (which must be at least 1) are not ranked.
+	 *
+	 * @return the items in rank order as returned by read().
+	 */
+	public static int[] rank(final long[] counts, long minCount)
+	{
+		int ranksNum = 0;
+		for (int i = 0; i < counts.length; i++)
+		{
+			if (counts[i] >= minCount)
+			{
+				ranksNum++;
+			}
+		}
+		Integer[] items = new Integer[ranksNum];
+		ranksNum = 0;
+		for (int i = 0; i < counts.length; i++)
+		{
+			if (counts[i] >= minCount)
+			{
+				items[ranksNum++] = i;
+			}
+		}
+		Arrays.sort(items, new Comparator<Integer>()
+		{
+			public int compare(Integer item1, Integer item2)
+			{
+				if (counts[item1] != counts[item2])
+				{
+					return counts[item1] > counts[item2] ? -1 : 1;
+				}
+				return item1.compareTo(item2);
+			}
+		});
+
+		int[] rankedItems = new int[ranksNum + 1];
+		for (int i = 0; i < ranksNum; i++)
+		{
+			rankedItems[i + 1] = items[i];
+		}
+		return rankedItems;
+	}
+
+	/**
+	 * Write the ranking of the items with the given counts, as computed
+	 * by rank().
+	 */
+	public static void write(DataOutputStream out, long[] counts, long minCount) throws IOException
+	{
+		int[] rankedItems = rank(counts, minCount);
+		out.writeInt(rankedItems.length - 1);
+		for (int i = 1; i < rankedItems.length; i++)
+		{
+			out.writeInt(rankedItems[i]);
+		}
+	}
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2012-14 Justin A. Debrabant <debrabant@cs.brown.edu> and Matteo Riondato <matteo@cs.brown.edu>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.apache.hadoop.io.DoubleWritable;
+import org.apache.hadoop.mapred.OutputCollector;
+
+import fim.fpgrowth.FrequentSetSink;
+
+/**
+ * Emits the frequent itemsets found by an FPtree as ItemsetWritable keys,
+ * with their supports as values, writing them into the same key and value
+ * each time.
+ *
+ * The items are sorted, so that an itemset gets the same key whatever
+ * the ranking of the items in the sample it was found in, and the
+ * aggregation job can group the keys as they are.
+ */
+public class ItemsetSink implements FrequentSetSink
+{
+	private final OutputCollector<ItemsetWritable, DoubleWritable> output;
+	private final ItemsetWritable itemset = new ItemsetWritable();
+	private final DoubleWritable support = new DoubleWritable();
+	private int[] sortedItems = new int[16];
+
+	public ItemsetSink(OutputCollector<ItemsetWritable, DoubleWritable> output)
+	{
+		this.output = output;
+	}
+
+	@Override
+	public void addFrequentSet(int[] items, int length, int support) throws IOException
+	{
+		if (sortedItems.length < length)
+		{
+			sortedItems = new int[Math.max(length, 2 * sortedItems.length)];
+		}
+		System.arraycopy(items, 0, sortedItems, 0, length);
+		Arrays.sort(sortedItems, 0, length);
+		itemset.set(sortedItems, length);
+		this.support.set(support);
+		output.collect(itemset, this.support);
+	}
+}
@@ -0,0 +1,256 @@
+/*
+ * Copyright 2012-14 Justin A. Debrabant <debrabant@cs.brown.edu> and Matteo Riondato <matteo@cs.brown.edu>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.StringTokenizer;
+
+import org.apache.hadoop.io.WritableComparable;
+import org.apache.hadoop.io.WritableComparator;
+import org.apache.hadoop.io.WritableUtils;
+
+/**
+ * A sorted set of integer item ids, e.g. a transaction.
+ *
+ * Like IntArrayWritable it holds an array of ints, but it is serialized
+ * compactly: the number of items, then the first item and the
+ * differences between consecutive items, all as variable-length
+ * integers. Most items of a transaction thus take a single byte.
+ *
+ * Instances are meant to be reused: set() and readFields() only
+ * reallocate the internal array when it is too small, so getItems() may
+ * return an array longer than size().
+ */
+public class ItemsetWritable implements WritableComparable<ItemsetWritable>
+{
+	private int[] items;
+	private int size;
+
+	public ItemsetWritable()
+	{
+		items = new int[16];
+		size = 0;
+	}
+
+	public ItemsetWritable(int[] sortedItems)
+	{
+		items = sortedItems;
+		size = sortedItems.length;
+	}
+
+	/**
+	 * Set the content to the first length elements of the given
+	 * array, which must be sorted and without repetitions. The array is
+	 * copied.
+	 */
+	public void set(int[] sortedItems, int length)
+	{
+		ensureCapacity(length);
+		System.arraycopy(sortedItems, 0, items, 0, length);
+		size = length;
+	}
+
+	/**
+	 * Set the content to the items in the given transaction, a list of
+	 * item ids separated by white space, in any order.
+	 */
+	public void set(String transaction)
+	{
+		StringTokenizer tokenizer = new StringTokenizer(transaction);
+		ensureCapacity(tokenizer.countTokens());
+		size = 0;
+		while (tokenizer.hasMoreTokens())
+		{
+			items[size++] = Integer.parseInt(tokenizer.nextToken());
+		}
+		Arrays.sort(items, 0, size);
+
+		// Remove repeated items
+		int distinct = 0;
+		for (int i = 0; i < size; i++)
+		{
+			if (distinct == 0 || items[i] != items[distinct - 1])
+			{
+				items[distinct++] = items[i];
+			}
+		}
+		size = distinct;
+	}
+
+	/**
+	 * The internal array, holding the items in its first size()
+	 * elements.
+	 */
+	public int[] getItems()
+	{
+		return items;
+	}
+
+	public int size()
+	{
+		return size;
+	}
+
+	/**
+	 * A copy of the items, exactly size() long.
+	 */
+	public int[] toArray()
+	{
+		return Arrays.copyOf(items, size);
+	}
+
+	private void ensureCapacity(int capacity)
+	{
+		if (items.length < capacity)
+		{
+			items = new int[Math.max(capacity, 2 * items.length)];
+		}
+	}
+
+	@Override
+	public void write(DataOutput out) throws IOException
+	{
+		WritableUtils.writeVInt(out, size);
+		int prev = 0;
+		for (int i = 0; i < size; i++)
+		{
+			WritableUtils.writeVInt(out, items[i] - prev);
+			prev = items[i];
+		}
+	}
+
+	@Override
+	public void readFields(DataInput in) throws IOException
+	{
+		int length = WritableUtils.readVInt(in);
+		ensureCapacity(length);
+		int prev = 0;
+		for (int i = 0; i < length; i++)
+		{
+			prev += WritableUtils.readVInt(in);
+			items[i] = prev;
+		}
+		size = length;
+	}
+
+	/**
+	 * Lexicographic order on the sorted items, a prefix coming before
+	 * the longer itemsets.
+	 */
+	@Override
+	public int compareTo(ItemsetWritable other)
+	{
+		int length = Math.min(size, other.size);
+		for (int i = 0; i < length; i++)
+		{
+			if (items[i] != other.items[i])
+			{
+				return items[i] < other.items[i] ? -1 : 1;
+			}
+		}
+		return size < other.size ? -1 : (size == other.size ? 0 : 1);
+	}
+
+	@Override
+	public boolean equals(Object o)
+	{
+		if (! (o instanceof ItemsetWritable))
+		{
+			return false;
+		}
+		return compareTo((ItemsetWritable) o) == 0;
+	}
+
+	@Override
+	public int hashCode()
+	{
+		int hash = 1;
+		for (int i = 0; i < size; i++)
+		{
+			hash = 31 * hash + items[i];
+		}
+		return hash;
+	}
+
+	/**
+	 * The items separated by spaces, as in the text input format.
+	 */
+	@Override
+	public String toString()
+	{
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < size; i++)
+		{
+			if (i > 0)
+			{
+				sb.append(' ');
+			}
+			sb.append(items[i]);
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Compares serialized itemsets without deserializing them, in the
+	 * same order as compareTo().
+	 */
+	public static class Comparator extends WritableComparator
+	{
+		public Comparator()
+		{
+			super(ItemsetWritable.class);
+		}
+
+		@Override
+		public int compare(byte[] b1, int s1, int l1, byte[] b2, int s2, int l2)
+		{
+			try
+			{
+				int size1 = readVInt(b1, s1);
+				int size2 = readVInt(b2, s2);
+				s1 += WritableUtils.decodeVIntSize(b1[s1]);
+				s2 += WritableUtils.decodeVIntSize(b2[s2]);
+				int item1 = 0;
+				int item2 = 0;
+				int length = Math.min(size1, size2);
+				for (int i = 0; i < length; i++)
+				{
+					item1 += readVInt(b1, s1);
+					item2 += readVInt(b2, s2);
+					if (item1 != item2)
+					{
+						return item1 < item2 ? -1 : 1;
+					}
+					s1 += WritableUtils.decodeVIntSize(b1[s1]);
+					s2 += WritableUtils.decodeVIntSize(b2[s2]);
+				}
+				return size1 < size2 ? -1 : (size1 == size2 ? 0 : 1);
+			}
+			catch (IOException e)
+			{
+				throw new IllegalArgumentException(e);
+			}
+		}
+	}
+
+	static
+	{
+		WritableComparator.define(ItemsetWritable.class, new Comparator());
+	}
+}
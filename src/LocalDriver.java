@@ -0,0 +1,604 @@
+/*
+ * Copyright 2012-14 Justin A. Debrabant <debrabant@cs.brown.edu> and Matteo Riondato <matteo@cs.brown.edu>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Description:
+ *	In-process, multi-threaded engine for PARMA. It runs the same mappers,
+ *	FIMReducer, AggregateMapper and AggregateReducer used by MRDriver, but
+ *	inside a single JVM, without submitting any MapReduce job. It is meant
+ *	for datasets whose samples fit in the memory of one machine, where the
+ *	setup and cooldown times of the two jobs dominate the running time.
+ *
+ * Usage: java LocalDriver <epsilon> <delta> <minFreqPercent> <d> <datasetSize> <numSamples> <phi> <mapper id>
+ *		<path to input database> <path to output local FIs> <path to output global FIs> <threads>
+ *	The arguments are the same as MRDriver's, plus the number of threads.
+ *	The local FIs are kept in memory, so the local FIs path is not written.
+ *
+ */
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.conf.Configured;
+import org.apache.hadoop.filecache.DistributedCache;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.DoubleWritable;
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.SequenceFile;
+import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.WritableUtils;
+import org.apache.hadoop.mapred.FileInputFormat;
+import org.apache.hadoop.mapred.FileSplit;
+import org.apache.hadoop.mapred.InputFormat;
+import org.apache.hadoop.mapred.InputSplit;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapred.Mapper;
+import org.apache.hadoop.mapred.OutputCollector;
+import org.apache.hadoop.mapred.RecordReader;
+import org.apache.hadoop.mapred.Reporter;
+import org.apache.hadoop.mapred.SequenceFileInputFormat;
+import org.apache.hadoop.util.GenericOptionsParser;
+import org.apache.hadoop.util.ReflectionUtils;
+import org.apache.hadoop.util.Tool;
+import org.apache.hadoop.util.ToolRunner;
+
+public class LocalDriver extends Configured implements Tool
+{
+	public static void main(String args[]) throws Exception
+	{
+		// Strip the generic options (e.g. -D PARMM.seed=...) first, so
+		// that only our arguments are counted.
+		Configuration conf = new Configuration();
+		args = new GenericOptionsParser(conf, args).getRemainingArgs();
+		if (args.length != 12)
+		{
+			System.out.println("usage: java LocalDriver <epsilon> <delta> <minFreqPercent> <d> <datasetSize> <numSamples> <phi> <mapper id> <path to input database> " +
+							   "<path to output local FIs> <path to output global FIs> <threads>");
+			System.exit(1);
+		}
+
+		int res = ToolRunner.run(conf, new LocalDriver(), args);
+
+		System.exit(res);
+	}
+
+	@SuppressWarnings("unchecked")
+	public int run(String args[]) throws Exception
+	{
+		float epsilon = Float.parseFloat(args[0]);
+		double delta = Double.parseDouble(args[1]);
+		int minFreqPercent = Integer.parseInt(args[2]);
+		int d = Integer.parseInt(args[3]);
+		int datasetSize = Integer.parseInt(args[4]);
+		final int numSamples = Integer.parseInt(args[5]);
+		double phi = Double.parseDouble(args[6]);
+		int threadsNum = Math.max(1, Integer.parseInt(args[11]));
+		Random rand;
+
+		int reqApproxNum = MRDriver.computeReqApproxNum(numSamples, delta, phi);
+		int sampleSize = MRDriver.computeSampleSize(epsilon, d, phi);
+
+		/*
+		 * One configuration is shared by all the phases. Each task gets
+		 * its own copy with "mapred.task.partition" set, as the mappers
+		 * and reducers use it as their id.
+		 */
+		JobConf conf = new JobConf(getConf());
+		conf.setInt("PARMM.reducersNum", numSamples);
+		conf.setInt("PARMM.datasetSize", datasetSize);
+		conf.setInt("PARMM.minFreqPercent", minFreqPercent);
+		conf.setInt("PARMM.sampleSize", sampleSize);
+		conf.setInt("PARMM.reqApproxNum", reqApproxNum);
+		conf.setFloat("PARMM.epsilon", epsilon);
+		// The local FIs are grouped in memory, never through bucket files.
+		conf.setBoolean("PARMM.mergeAggregation", false);
+		long seed = CounterRandom.getJobSeed(conf);
+		System.out.println("seed: " + seed);
+		FileInputFormat.addInputPath(conf, new Path(args[8]));
+
+		Path outputPath = new Path(args[10]);
+		FileSystem outFs = outputPath.getFileSystem(conf);
+		if (outFs.exists(outputPath))
+		{
+			throw new IOException("Output directory " + outputPath + " already exists");
+		}
+
+		long start_time = System.currentTimeMillis();
+
+		Class<? extends Mapper<LongWritable, ItemsetWritable, IntWritable, ItemsetWritable>> mapperClass = null;
+		InputFormat<LongWritable, ItemsetWritable> inputFormat = new SequenceFileInputFormat<LongWritable, ItemsetWritable>();
+		File samplesIndexFile = null;
+		File toSampleArrFile = null;
+		File itemRanksFile = null;
+		switch(Integer.parseInt(args[7]))
+		{
+			case 1:
+				System.out.println("running partition mapper...");
+				mapperClass = PartitionMapper.class;
+				break;
+			case 2:
+				System.out.println("running binomial mapper...");
+				mapperClass = BinomialSamplerMapper.class;
+				break;
+			case 3:
+				System.out.println("running coin mapper...");
+				mapperClass = CoinFlipSamplerMapper.class;
+				break;
+			case 4:
+				System.out.println("running sampler mapper...");
+				mapperClass = InputSamplerMapper.class;
+
+				/*
+				 * The mapper reads the samples index from the
+				 * DistributedCache local files, so write it to a
+				 * local file and register it there.
+				 */
+				rand = new CounterRandom(seed, CounterRandom.DRIVER_STREAM);
+				long sampling_start_time = System.nanoTime();
+				long[] draws = MRDriver.createSamplesDraws(numSamples, sampleSize, datasetSize, rand);
+				samplesIndexFile = File.createTempFile("samplesIndex", ".bin");
+				samplesIndexFile.deleteOnExit();
+				DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(samplesIndexFile)));
+				SamplesIndex.write(out, draws);
+				out.close();
+				DistributedCache.setLocalFiles(conf, samplesIndexFile.getAbsolutePath());
+				long sampling_end_time = System.nanoTime();
+				long sampling_runtime = (sampling_end_time - sampling_start_time) / 1000000;
+				System.out.println("sampling runtime (milliseconds): " + sampling_runtime);
+				break;
+			case 5:
+				System.out.println("running random integer partition mapper...");
+				mapperClass = RandIntPartSamplerMapper.class;
+				break;
+			case 6:
+				System.out.println("running split-local sampler mapper...");
+				mapperClass = SplitSamplerMapper.class;
+				break;
+			default:
+				System.err.println("Wrong Mapper ID. Can only be in [1,6]");
+				System.exit(1);
+				break;
+		}
+
+		// One split per thread, as in MRDriver we get one per block.
+		InputSplit[] splits = inputFormat.getSplits(conf, threadsNum);
+		if (mapperClass == RandIntPartSamplerMapper.class)
+		{
+			rand = new CounterRandom(seed, CounterRandom.DRIVER_STREAM);
+			int[][] toSampleArr = MRDriver.createToSampleArr(numSamples, sampleSize, splits.length, rand);
+			toSampleArrFile = File.createTempFile("toSampleArr", ".bin");
+			toSampleArrFile.deleteOnExit();
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(toSampleArrFile)));
+			SampleAllocations.write(out, toSampleArr);
+			out.close();
+			DistributedCache.setLocalFiles(conf, toSampleArrFile.getAbsolutePath());
+		}
+
+		ExecutorService pool = Executors.newFixedThreadPool(threadsNum);
+		try
+		{
+			/************************ Optional item count pre-pass ************************/
+
+			if (conf.getBoolean("PARMM.globalRanks", false) || conf.getBoolean("PARMM.pruneItems", false))
+			{
+				long count_start_time = System.currentTimeMillis();
+				long[] itemCounts = countItems(pool, inputFormat, splits, conf);
+				itemRanksFile = File.createTempFile("itemRanks", ".bin");
+				itemRanksFile.deleteOnExit();
+				DataOutputStream ranksOut = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(itemRanksFile)));
+				ItemRanks.write(ranksOut, itemCounts, MRDriver.getMinItemCount(conf));
+				ranksOut.close();
+				DistributedCache.addLocalFiles(conf, itemRanksFile.getAbsolutePath());
+				long count_end_time = System.currentTimeMillis();
+				System.out.println("item count pre-pass runtime (milliseconds): " + (count_end_time - count_start_time));
+			}
+
+			/************************ Sampling (map) phase ************************/
+
+			final ArrayList<ArrayList<Writable>> samples = new ArrayList<ArrayList<Writable>>(numSamples);
+			for (int i = 0; i < numSamples; i++)
+			{
+				samples.add(new ArrayList<Writable>(sampleSize));
+			}
+
+			long map_start_time = System.currentTimeMillis();
+			List<Future<Void>> futures = new ArrayList<Future<Void>>();
+			for (int i = 0; i < splits.length; i++)
+			{
+				final Class<? extends Mapper<LongWritable, ItemsetWritable, IntWritable, ItemsetWritable>> taskMapperClass = mapperClass;
+				final InputFormat<LongWritable, ItemsetWritable> taskInputFormat = inputFormat;
+				final InputSplit split = splits[i];
+				final JobConf taskConf = new JobConf(conf);
+				taskConf.setInt("mapred.task.partition", i);
+				if (split instanceof FileSplit)
+				{
+					// As set by the map tasks of the old API.
+					FileSplit fileSplit = (FileSplit) split;
+					taskConf.set("map.input.file", fileSplit.getPath().toString());
+					taskConf.setLong("map.input.start", fileSplit.getStart());
+					taskConf.setLong("map.input.length", fileSplit.getLength());
+				}
+				futures.add(pool.submit(new Callable<Void>()
+				{
+					public Void call() throws IOException
+					{
+						runMapTask(taskMapperClass, taskInputFormat, split, taskConf, samples);
+						return null;
+					}
+				}));
+			}
+			waitFor(futures);
+			long map_end_time = System.currentTimeMillis();
+			System.out.println("sampling phase runtime (milliseconds): " + (map_end_time - map_start_time));
+
+			/************************ Local FIM (reduce) phase ************************/
+
+			final ConcurrentHashMap<ItemsetWritable, ConcurrentLinkedQueue<FrequencyListWritable>> itemsets =
+				new ConcurrentHashMap<ItemsetWritable, ConcurrentLinkedQueue<FrequencyListWritable>>();
+			futures.clear();
+			for (int i = 0; i < numSamples; i++)
+			{
+				final int sampleID = i;
+				final JobConf taskConf = new JobConf(conf);
+				taskConf.setInt("mapred.task.partition", i);
+				futures.add(pool.submit(new Callable<Void>()
+				{
+					public Void call() throws IOException
+					{
+						ArrayList<Writable> sample = samples.get(sampleID);
+						// As in MapReduce, empty partitions get no reduce call.
+						if (! sample.isEmpty())
+						{
+							FIMReducer reducer = ReflectionUtils.newInstance(FIMReducer.class, taskConf);
+							AggregateMapper aggrMapper = ReflectionUtils.newInstance(AggregateMapper.class, taskConf);
+							reducer.reduce(new IntWritable(sampleID), (Iterator) sample.iterator(),
+									new LocalFIsCollector(aggrMapper, itemsets), Reporter.NULL);
+							reducer.close();
+							aggrMapper.close();
+						}
+						// The sample is not needed anymore.
+						samples.set(sampleID, null);
+						return null;
+					}
+				}));
+			}
+			waitFor(futures);
+			long FIM_end_time = System.currentTimeMillis();
+			System.out.println("local FIM phase runtime (milliseconds): " + (FIM_end_time - map_end_time));
+
+			/************************ Aggregation phase ************************/
+
+			outFs.mkdirs(outputPath);
+			final ArrayList<ItemsetWritable> keys = new ArrayList<ItemsetWritable>(itemsets.keySet());
+			final int aggrTasksNum = threadsNum;
+			boolean textOutput = conf.getBoolean("PARMM.textOutput", false);
+			futures.clear();
+			for (int i = 0; i < aggrTasksNum; i++)
+			{
+				final int taskID = i;
+				final JobConf taskConf = new JobConf(conf);
+				taskConf.setInt("mapred.task.partition", i);
+				Path partPath = new Path(outputPath, String.format("part-%05d", i));
+				final GlobalFIsCollector collector = textOutput
+					? new TextFIsCollector(outFs.create(partPath))
+					: new SequenceFileFIsCollector(SequenceFile.createWriter(outFs, conf, partPath,
+							ItemsetWritable.class, FrequencyEstimateWritable.class));
+				futures.add(pool.submit(new Callable<Void>()
+				{
+					public Void call() throws IOException
+					{
+						AggregateReducer reducer = ReflectionUtils.newInstance(AggregateReducer.class, taskConf);
+						for (int k = taskID; k < keys.size(); k += aggrTasksNum)
+						{
+							ItemsetWritable itemset = keys.get(k);
+							reducer.reduce(itemset, itemsets.get(itemset).iterator(), collector, Reporter.NULL);
+						}
+						reducer.close();
+						collector.close();
+						return null;
+					}
+				}));
+			}
+			waitFor(futures);
+			long aggr_end_time = System.currentTimeMillis();
+			System.out.println("aggregation phase runtime (milliseconds): " + (aggr_end_time - FIM_end_time));
+			System.out.println("total runtime (all inclusive) (milliseconds): " + (aggr_end_time - start_time));
+		}
+		finally
+		{
+			pool.shutdown();
+			if (samplesIndexFile != null)
+			{
+				samplesIndexFile.delete();
+			}
+			if (toSampleArrFile != null)
+			{
+				toSampleArrFile.delete();
+			}
+			if (itemRanksFile != null)
+			{
+				itemRanksFile.delete();
+			}
+		}
+
+		return 0;
+	}
+
+	/**
+	 * Run the mapper over one input split, as a map task would, and add
+	 * the transactions it selects to the samples they are sent to.
+	 */
+	private static void runMapTask(Class<? extends Mapper<LongWritable, ItemsetWritable, IntWritable, ItemsetWritable>> mapperClass,
+			InputFormat<LongWritable, ItemsetWritable> inputFormat,
+			InputSplit split, JobConf conf, ArrayList<ArrayList<Writable>> samples) throws IOException
+	{
+		Mapper<LongWritable, ItemsetWritable, IntWritable, ItemsetWritable> mapper = ReflectionUtils.newInstance(mapperClass, conf);
+		SamplesCollector collector = new SamplesCollector(samples.size(), conf);
+		// As the PruningMapRunner does in a map task.
+		PruningCollector pruning = PruningCollector.create(conf);
+		OutputCollector<IntWritable, ItemsetWritable> output = pruning == null ? collector : pruning.wrap(collector);
+		RecordReader<LongWritable, ItemsetWritable> reader = inputFormat.getRecordReader(split, conf, Reporter.NULL);
+		LongWritable key = reader.createKey();
+		ItemsetWritable value = reader.createValue();
+		while (reader.next(key, value))
+		{
+			mapper.map(key, value, output, Reporter.NULL);
+		}
+		reader.close();
+		mapper.close();
+		if (pruning != null)
+		{
+			pruning.flush();
+		}
+
+		for (int i = 0; i < samples.size(); i++)
+		{
+			ArrayList<Writable> sample = samples.get(i);
+			synchronized (sample)
+			{
+				sample.addAll(collector.buckets.get(i));
+			}
+		}
+	}
+
+	/**
+	 * Wait for all the given tasks, rethrowing the first failure.
+	 */
+	private static void waitFor(List<Future<Void>> futures) throws Exception
+	{
+		for (Future<Void> future : futures)
+		{
+			try
+			{
+				future.get();
+			}
+			catch (ExecutionException e)
+			{
+				if (e.getCause() instanceof Exception)
+				{
+					throw (Exception) e.getCause();
+				}
+				throw e;
+			}
+		}
+	}
+
+	/**
+	 * Run the ItemCountMapper over every split, as the item count
+	 * pre-pass job does, and return the number of transactions
+	 * containing each item (indexed by item).
+	 */
+	private static long[] countItems(ExecutorService pool, final InputFormat<LongWritable, ItemsetWritable> inputFormat,
+			InputSplit[] splits, final JobConf conf) throws Exception
+	{
+		final ItemCountsCollector collector = new ItemCountsCollector();
+		List<Future<Void>> futures = new ArrayList<Future<Void>>();
+		for (final InputSplit split : splits)
+		{
+			futures.add(pool.submit(new Callable<Void>()
+			{
+				public Void call() throws IOException
+				{
+					ItemCountMapper mapper = ReflectionUtils.newInstance(ItemCountMapper.class, conf);
+					RecordReader<LongWritable, ItemsetWritable> reader = inputFormat.getRecordReader(split, conf, Reporter.NULL);
+					LongWritable key = reader.createKey();
+					ItemsetWritable value = reader.createValue();
+					while (reader.next(key, value))
+					{
+						mapper.map(key, value, collector, Reporter.NULL);
+					}
+					reader.close();
+					// The counts are emitted when the mapper is closed.
+					mapper.close();
+					return null;
+				}
+			}));
+		}
+		waitFor(futures);
+		return collector.counts;
+	}
+
+	/**
+	 * Sums the item counts emitted by the ItemCountMappers, in place of
+	 * the pre-pass job reducer.
+	 */
+	private static class ItemCountsCollector implements OutputCollector<IntWritable, LongWritable>
+	{
+		private long[] counts = new long[1024];
+
+		@Override
+		public synchronized void collect(IntWritable item, LongWritable count)
+		{
+			if (item.get() >= counts.length)
+			{
+				counts = Arrays.copyOf(counts, Math.max(item.get() + 1, 2 * counts.length));
+			}
+			counts[item.get()] += count.get();
+		}
+	}
+
+	/**
+	 * Collects the output of a mapper into one bucket per sample, the
+	 * sample being the key (as in FIMPartitioner). Values are copied
+	 * because the record readers reuse them.
+	 */
+	private static class SamplesCollector implements OutputCollector<IntWritable, ItemsetWritable>
+	{
+		private final ArrayList<ArrayList<Writable>> buckets;
+		private final JobConf conf;
+
+		public SamplesCollector(int numSamples, JobConf conf)
+		{
+			this.conf = conf;
+			buckets = new ArrayList<ArrayList<Writable>>(numSamples);
+			for (int i = 0; i < numSamples; i++)
+			{
+				buckets.add(new ArrayList<Writable>());
+			}
+		}
+
+		@Override
+		public void collect(IntWritable key, ItemsetWritable value)
+		{
+			buckets.get(key.get()).add(WritableUtils.clone(value, conf));
+		}
+	}
+
+	/**
+	 * Receives the local frequent itemsets found by a FIMReducer, passes
+	 * them through the AggregateMapper, and groups them by itemset in the
+	 * shared map, in place of the aggregation job shuffle.
+	 */
+	private static class LocalFIsCollector implements OutputCollector<ItemsetWritable, DoubleWritable>
+	{
+		private final AggregateMapper aggrMapper;
+		private final OutputCollector<ItemsetWritable, FrequencyListWritable> groupingCollector;
+
+		public LocalFIsCollector(AggregateMapper aggrMapper,
+				final ConcurrentHashMap<ItemsetWritable, ConcurrentLinkedQueue<FrequencyListWritable>> itemsets)
+		{
+			this.aggrMapper = aggrMapper;
+			this.groupingCollector = new OutputCollector<ItemsetWritable, FrequencyListWritable>()
+			{
+				@Override
+				public void collect(ItemsetWritable itemset, FrequencyListWritable freq)
+				{
+					ConcurrentLinkedQueue<FrequencyListWritable> freqs = itemsets.get(itemset);
+					if (freqs == null)
+					{
+						freqs = new ConcurrentLinkedQueue<FrequencyListWritable>();
+						ConcurrentLinkedQueue<FrequencyListWritable> prev = itemsets.putIfAbsent(new ItemsetWritable(itemset.toArray()), freqs);
+						if (prev != null)
+						{
+							freqs = prev;
+						}
+					}
+					FrequencyListWritable copy = new FrequencyListWritable();
+					copy.addAll(freq);
+					freqs.add(copy);
+				}
+			};
+		}
+
+		@Override
+		public void collect(ItemsetWritable itemset, DoubleWritable freq) throws IOException
+		{
+			aggrMapper.map(itemset, freq, groupingCollector, Reporter.NULL);
+		}
+	}
+
+	/**
+	 * Writes the global frequent itemsets of one aggregation task to its
+	 * part file, in the format selected by PARMM.textOutput.
+	 */
+	private interface GlobalFIsCollector
+		extends OutputCollector<ItemsetWritable, FrequencyEstimateWritable>, Closeable
+	{
+	}
+
+	/**
+	 * Writes the global frequent itemsets in the same format used by
+	 * TextOutputFormat in the aggregation job.
+	 */
+	private static class TextFIsCollector implements GlobalFIsCollector
+	{
+		private final FSDataOutputStream out;
+
+		public TextFIsCollector(FSDataOutputStream out)
+		{
+			this.out = out;
+		}
+
+		@Override
+		public void collect(ItemsetWritable itemset, FrequencyEstimateWritable estimate) throws IOException
+		{
+			out.write(itemset.toString().getBytes("UTF-8"));
+			out.write('\t');
+			out.write(estimate.toString().getBytes("UTF-8"));
+			out.write('\n');
+		}
+
+		@Override
+		public void close() throws IOException
+		{
+			out.close();
+		}
+	}
+
+	/**
+	 * Writes the global frequent itemsets in the same format used by
+	 * SequenceFileOutputFormat in the aggregation job.
+	 */
+	private static class SequenceFileFIsCollector implements GlobalFIsCollector
+	{
+		private final SequenceFile.Writer writer;
+
+		public SequenceFileFIsCollector(SequenceFile.Writer writer)
+		{
+			this.writer = writer;
+		}
+
+		@Override
+		public void collect(ItemsetWritable itemset, FrequencyEstimateWritable estimate) throws IOException
+		{
+			writer.append(itemset, estimate);
+		}
+
+		@Override
+		public void close() throws IOException
+		{
+			writer.close();
+		}
+	}
+}
@@ -19,55 +19,72 @@
  * Usage: java MRDriver <mapper id> <path to input database> <path to output local FIs> <path to output global FIs>
 	* mapper id - specifies which Map method should be used
 		1 for partition mapper, 2 for binomial mapper, 3 for weighted coin flip sampler, 4 for sampler, 5 for random integer partition,
+		6 for split-local sampler,
 	* path to input database - path to file containing transactions in .dat format (1 transaction per line)
 	* local FI output - path to directory to write local (per-reducer) FIs
 	* global FI output - path to directory to write global FIs (combined from all local FIs)
  
 ***************************************************************************************************************************/
 
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.net.URI;
 import java.util.Arrays;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Hashtable;
 import java.util.Random;
 
+import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.conf.Configured;
 import org.apache.hadoop.filecache.DistributedCache;
+import org.apache.hadoop.fs.FSDataOutputStream;
 import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
-import org.apache.hadoop.fs.FSDataOutputStream;
 import org.apache.hadoop.fs.Path;
-import org.apache.hadoop.io.DefaultStringifier;
 import org.apache.hadoop.io.DoubleWritable;
 import org.apache.hadoop.io.IntWritable;
 import org.apache.hadoop.io.LongWritable;
-import org.apache.hadoop.io.MapWritable;
-import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.SequenceFile;
 import org.apache.hadoop.mapred.Counters;
+import org.apache.hadoop.mapred.FileInputFormat;
 import org.apache.hadoop.mapred.FileOutputFormat;
 import org.apache.hadoop.mapred.JobClient;
 import org.apache.hadoop.mapred.JobConf;
 import org.apache.hadoop.mapred.RunningJob;
 import org.apache.hadoop.mapred.SequenceFileInputFormat;
 import org.apache.hadoop.mapred.SequenceFileOutputFormat;
+import org.apache.hadoop.mapred.lib.LongSumReducer;
+import org.apache.hadoop.mapred.lib.NLineInputFormat;
 import org.apache.hadoop.util.Tool;
+import org.apache.hadoop.util.GenericOptionsParser;
 import org.apache.hadoop.util.ToolRunner;
 
 public class MRDriver extends Configured implements Tool
 {
 	public final int MR_TIMEOUT_MILLI = 60000000;
+	public final int AGGR_SAMPLES_PER_REDUCER = 1000;
 	
 	public static void main(String args[]) throws Exception
 	{
-		if (args.length != 11)
+		// Strip the generic options (e.g. -D PARMM.seed=...) first, so
+		// that only our arguments are counted.
+		Configuration conf = new Configuration();
+		args = new GenericOptionsParser(conf, args).getRemainingArgs();
+		if (args.length != 11 && args.length != 12)
 		{
 			System.out.println("usage: java MRDriver <epsilon> <delta> <minFreqPercent> <d> <datasetSize> <numSamples> <phi> <mapper id> <path to input database> " + 
-							   "<path to output local FIs> <path to output global FIs>");
+							   "<path to output local FIs> <path to output global FIs> [<threads>]");
 			System.exit(1); 
 		}
 
-		int res = ToolRunner.run(new MRDriver(), args);
+		/*
+		 * With the additional thread count argument we run the
+		 * in-process engine instead of submitting MapReduce jobs.
+		 */
+		int res;
+		if (args.length == 12)
+			res = ToolRunner.run(conf, new LocalDriver(), args);
+		else
+			res = ToolRunner.run(conf, new MRDriver(), args);
 
 		System.exit(res);
 	}
@@ -75,7 +92,9 @@ public class MRDriver extends Configured implements Tool
 	public int run(String args[]) throws Exception
 	{
 		FileSystem fs = null;
-		Path samplesMapPath = null;
+		Path samplesIndexPath = null;
+		Path toSampleArrPath = null;
+		Path itemRanksPath = null;
 
 		float epsilon = Float.parseFloat(args[0]);
 		double delta = Double.parseDouble(args[1]);
@@ -95,9 +114,8 @@ public class MRDriver extends Configured implements Tool
 		 * Compute the number of required "votes" for an itemsets to be
 		 * declared frequent 	
 		 */
-		// The +1 at the end is needed to ensure reqApproxNum > numsamples / 2.
-		int reqApproxNum = (int) Math.floor((numSamples*(1-phi))-Math.sqrt(numSamples*(1-phi)*2*Math.log(1/delta))) + 1;
-		int sampleSize = (int) Math.ceil((2 / Math.pow(epsilon, 2))*(d + Math.log(1/ phi)));
+		int reqApproxNum = computeReqApproxNum(numSamples, delta, phi);
+		int sampleSize = computeSampleSize(epsilon, d, phi);
 		//System.out.println("reducersNum: " + numSamples + " reqApproxNum: " + reqApproxNum);
 
 		conf.setInt("PARMM.reducersNum", numSamples);
@@ -105,13 +123,50 @@ public class MRDriver extends Configured implements Tool
 		conf.setInt("PARMM.minFreqPercent", minFreqPercent);
 		conf.setInt("PARMM.sampleSize", sampleSize);
 		conf.setFloat("PARMM.epsilon", epsilon);
+		// All the random choices depend only on PARMM.seed (settable
+		// with -D, random by default), the task and the record ids.
+		long seed = CounterRandom.getJobSeed(conf);
+		System.out.println("seed: " + seed);
+		// PARMM.miningThreads (settable with -D, default 1) is the
+		// number of threads each FIMReducer mines its FP-tree with.
+		// With PARMM.globalRanks (settable with -D, default false) the
+		// items are counted over the whole dataset by a pre-pass job
+		// and all the FIMReducers build their FP-trees in that order.
+		// With PARMM.pruneItems (settable with -D, default false) the
+		// same pre-pass finds the items that cannot be frequent in any
+		// sample that is an epsilon/2-approximation (see
+		// getMinItemCount()), and the map tasks remove them before the
+		// shuffle.
+		// With PARMM.mergeAggregation (settable with -D, default false)
+		// the FIMReducers write their itemsets sorted into
+		// PARMM.aggrBuckets (settable with -D, default numSamples)
+		// bucket files, and the aggregation job is map-only, merging the
+		// files of one bucket per map task. Each FIMReducer holds at most
+		// PARMM.aggrSpillBytes (settable with -D, default 64 MB) of
+		// itemsets in memory, writing them as a sorted run of bucket
+		// files whenever they take more.
+		// The global FIs are written as a SequenceFile of
+		// (ItemsetWritable, FrequencyEstimateWritable) pairs, or with
+		// PARMM.textOutput (settable with -D, default false) as text
+		// lines "items\t(estimate,lower bound,upper bound)".
+		// Without PARMM.mergeAggregation, the aggregation job gets
+		// PARMM.aggrReducersNum (settable with -D, default 0: one per
+		// PARMM.aggrBytesPerReducer, settable with -D, default 128 MB,
+		// of FIM job output, at most the reduce capacity of the
+		// cluster) reducers, with the itemsets range-partitioned on a
+		// sample of the FIM job output.
+		boolean mergeAggregation = conf.getBoolean("PARMM.mergeAggregation", false);
+		int aggrBuckets = conf.getInt("PARMM.aggrBuckets", numSamples);
+		conf.setInt("PARMM.aggrBuckets", aggrBuckets);
 
 		// Set the number of reducers equal to the number of samples, to
 		// maximize parallelism. Required by our Partitioner.
 		conf.setNumReduceTasks(numSamples);
 
-		// XXX: why do we disable the speculative execution? MR
-		conf.setBoolean("mapred.reduce.tasks.speculative.execution", false); 
+		// Sampling is deterministic given the seed, so re-executed
+		// and speculative tasks produce the same samples.
+		conf.setBoolean("mapred.map.tasks.speculative.execution", true); 
+		conf.setBoolean("mapred.reduce.tasks.speculative.execution", true); 
 		conf.setInt("mapred.task.timeout", MR_TIMEOUT_MILLI); 
 
 		/* 
@@ -131,9 +186,9 @@ public class MRDriver extends Configured implements Tool
 		conf.setJarByClass(MRDriver.class);
 			
 		conf.setMapOutputKeyClass(IntWritable.class); 
-		conf.setMapOutputValueClass(Text.class); 
+		conf.setMapOutputValueClass(ItemsetWritable.class); 
 			
-		conf.setOutputKeyClass(Text.class); 
+		conf.setOutputKeyClass(ItemsetWritable.class); 
 		conf.setOutputValueClass(DoubleWritable.class); 
 
 		conf.setInputFormat(SequenceFileInputFormat.class);
@@ -154,60 +209,31 @@ public class MRDriver extends Configured implements Tool
 				System.out.println("running binomial mapper..."); 
 				SequenceFileInputFormat.addInputPath(conf, new Path(args[8]));
 				conf.setMapperClass(BinomialSamplerMapper.class);
+				// One record per (transaction, sample), with the
+				// number of times it was sampled.
+				conf.setMapOutputValueClass(WeightedItemsetWritable.class);
 				break;
 			case 3:
 				System.out.println("running coin mapper..."); 
 				SequenceFileInputFormat.addInputPath(conf, new Path(args[8]));
 				conf.setMapperClass(CoinFlipSamplerMapper.class);
+				break;
 			case 4:
 				System.out.println("running sampler mapper..."); 
 				SequenceFileInputFormat.addInputPath(conf, new Path(args[8]));
 				conf.setMapperClass(InputSamplerMapper.class);
 
 				// create a random sample of size T*m
-				rand = new Random();
+				rand = new CounterRandom(seed, CounterRandom.DRIVER_STREAM);
 				long sampling_start_time = System.nanoTime(); 
-				int[] samples = new int[numSamples * sampleSize];
-				for (int i = 0; i < numSamples * sampleSize; i++)
-				{
-					samples[i] = rand.nextInt(datasetSize);
-				}
-
-				// for each key in the sample, create a list of all T samples to which this key belongs
-				Hashtable<LongWritable, ArrayList<IntWritable>> hashTable = new Hashtable<LongWritable, ArrayList<IntWritable>>();
-				for (int i=0; i < numSamples * sampleSize; i++) 
-				{
-					ArrayList<IntWritable> sampleIDs = null;
-					LongWritable key = new LongWritable(samples[i]);
-					if (hashTable.containsKey(key))  
-						sampleIDs = hashTable.get(key);
-					else
-						sampleIDs = new ArrayList<IntWritable>();
-					sampleIDs.add(new IntWritable(i % numSamples));
-					hashTable.put(key, sampleIDs);
-				}
+				long[] draws = createSamplesDraws(numSamples, sampleSize, datasetSize, rand);
 
-				/*
-				 * Convert the Hastable to a MapWritable which we will
-				 * write to HDFS and distribute to all Mappers using
-				 * DistributedCache
-				 */
-				MapWritable map = new MapWritable();
-				for (LongWritable key : hashTable.keySet())
-				{
-					ArrayList<IntWritable> sampleIDs = hashTable.get(key);
-					IntArrayWritable sampleIDsIAW = new IntArrayWritable();
-					sampleIDsIAW.set(sampleIDs.toArray(new IntWritable[sampleIDs.size()]));
-					map.put(key, sampleIDsIAW);
-				}
-
-				fs = FileSystem.get(URI.create("samplesMap.ser"), conf);
-				samplesMapPath = new Path("samplesMap.ser");
-				FSDataOutputStream out = fs.create(samplesMapPath, true);
-				map.write(out);
-				out.sync();
+				fs = FileSystem.get(URI.create("samplesIndex.bin"), conf);
+				samplesIndexPath = new Path("samplesIndex.bin");
+				DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fs.create(samplesIndexPath, true)));
+				SamplesIndex.write(out, draws);
 				out.close();
-				DistributedCache.addCacheFile(new URI(fs.getWorkingDirectory() + "/samplesMap.ser#samplesMap.ser"), conf);
+				DistributedCache.addCacheFile(new URI(fs.getWorkingDirectory() + "/samplesIndex.bin#samplesIndex.bin"), conf);
 				// stop the sampling timer	
 				long sampling_end_time = System.nanoTime(); 
 				long sampling_runtime = (sampling_end_time - sampling_start_time) / 1000000; 
@@ -215,9 +241,8 @@ public class MRDriver extends Configured implements Tool
 				break; // end switch case
 			case 5:	
 				System.out.println("running random integer partition mapper..."); 
-				conf.setInputFormat(WholeSplitInputFormat.class);
 				Path inputFilePath = new Path(args[8]);
-				WholeSplitInputFormat.addInputPath(conf, inputFilePath);
+				SequenceFileInputFormat.addInputPath(conf, inputFilePath);
 				conf.setMapperClass(RandIntPartSamplerMapper.class);
 				// Compute number of map tasks.
 				fs = inputFilePath.getFileSystem(conf);
@@ -230,57 +255,25 @@ public class MRDriver extends Configured implements Tool
 				conf.setNumMapTasks(mapTasksNum);
 				//System.out.println("len: " + len + " blockSize: " 
 				//		+ blockSize + " mapTasksNum: " + mapTasksNum);
-				// Extract random integer partition of total sample
-				// size into up to mapTasksNum partitions.
-				// XXX I'm not sure this is a correct way to do
-				// it.
-				rand = new Random();
-				IntWritable[][] toSampleArr = new IntWritable[mapTasksNum][numSamples];
-				for (int j = 0; j < numSamples; j++)
-				{
-					IntWritable[] tempToSampleArr = new IntWritable[mapTasksNum];
-					int sum = 0;
-					int i;
-					for (i = 0; i < mapTasksNum -1; i++)
-					{
-						int size = rand.nextInt(sampleSize - sum);
-						tempToSampleArr[i] = new IntWritable(size);
-						sum += size;
-						if (sum > numSamples * sampleSize)
-						{
-							System.out.println("Something went wrong generating the sample Sizes");
-							System.exit(1);
-						}
-						if (sum == sampleSize)
-						{
-							break;
-						}
-					}
-					if (i == mapTasksNum -1) 
-					{
-						tempToSampleArr[i] = new IntWritable(sampleSize - sum);
-					}
-					else 
-					{
-						for (; i < mapTasksNum; i++)
-						{
-							tempToSampleArr[i] = new IntWritable(0); 
-						}
-					}
-					Collections.shuffle(Arrays.asList(tempToSampleArr));
-					for (i = 0; i < mapTasksNum; i++)
-					{
-						toSampleArr[i][j] = tempToSampleArr[i];
-					}
-				}
-
-				for (int i = 0; i < mapTasksNum; i++)
-				{
-					DefaultStringifier.storeArray(conf, toSampleArr[i], "PARMM.toSampleArr_" + i);
-				}
+				rand = new CounterRandom(seed, CounterRandom.DRIVER_STREAM);
+				int[][] toSampleArr = createToSampleArr(numSamples, sampleSize, mapTasksNum, rand);
+				fs = FileSystem.get(URI.create("toSampleArr.bin"), conf);
+				toSampleArrPath = new Path("toSampleArr.bin");
+				DataOutputStream toSampleOut = new DataOutputStream(new BufferedOutputStream(fs.create(toSampleArrPath, true)));
+				SampleAllocations.write(toSampleOut, toSampleArr);
+				toSampleOut.close();
+				DistributedCache.addCacheFile(new URI(fs.getWorkingDirectory() + "/toSampleArr.bin#toSampleArr.bin"), conf);
+				break;
+			case 6:
+				System.out.println("running split-local sampler mapper...");
+				SequenceFileInputFormat.addInputPath(conf, new Path(args[8]));
+				conf.setMapperClass(SplitSamplerMapper.class);
+				// One record per (transaction, sample), with the
+				// number of times it was sampled.
+				conf.setMapOutputValueClass(WeightedItemsetWritable.class);
 				break;
 			default:
-				System.err.println("Wrong Mapper ID. Can only be in [1,5]");
+				System.err.println("Wrong Mapper ID. Can only be in [1,6]");
 				System.exit(1);
 				break;
 		}
@@ -293,6 +286,30 @@ public class MRDriver extends Configured implements Tool
 		conf.setPartitionerClass(FIMPartitioner.class);
 
 		conf.setReducerClass(FIMReducer.class);
+
+		if (conf.getBoolean("PARMM.pruneItems", false))
+		{
+			conf.setMapRunnerClass(PruningMapRunner.class);
+			// Transactions left empty are sent as one weighted record
+			// per sample.
+			conf.setMapOutputValueClass(WeightedItemsetWritable.class);
+		}
+
+		/************************ Optional item count pre-pass ************************/
+
+		if (conf.getBoolean("PARMM.globalRanks", false) || conf.getBoolean("PARMM.pruneItems", false))
+		{
+			long itemCountJob_start_time = System.currentTimeMillis(); 
+			long[] itemCounts = countItems(new Path(args[8]), new Path(args[9] + "_itemCounts"));
+			FileSystem ranksFs = FileSystem.get(URI.create("itemRanks.bin"), conf);
+			itemRanksPath = new Path("itemRanks.bin");
+			DataOutputStream ranksOut = new DataOutputStream(new BufferedOutputStream(ranksFs.create(itemRanksPath, true)));
+			ItemRanks.write(ranksOut, itemCounts, getMinItemCount(conf));
+			ranksOut.close();
+			DistributedCache.addCacheFile(new URI(ranksFs.getWorkingDirectory() + "/itemRanks.bin#itemRanks.bin"), conf);
+			long itemCountJob_runtime = System.currentTimeMillis() - itemCountJob_start_time;
+			System.out.println("item count pre-pass runtime (milliseconds): " + itemCountJob_runtime);
+		}
 			
 
 	
@@ -305,23 +322,48 @@ public class MRDriver extends Configured implements Tool
 		confAggr.setInt("PARMM.sampleSize", sampleSize);
 		confAggr.setFloat("PARMM.epsilon", epsilon);
 
-		// XXX: Why do we disable speculative execution? MR
-		confAggr.setBoolean("mapred.reduce.tasks.speculative.execution", false); 
+		confAggr.setBoolean("mapred.reduce.tasks.speculative.execution", true); 
 		confAggr.setInt("mapred.task.timeout", MR_TIMEOUT_MILLI); 
 
 		confAggr.setJarByClass(MRDriver.class);
 			
-		confAggr.setMapOutputKeyClass(Text.class); 
-		confAggr.setMapOutputValueClass(DoubleWritable.class); 
+		confAggr.setMapOutputKeyClass(ItemsetWritable.class); 
+		confAggr.setMapOutputValueClass(FrequencyListWritable.class); 
 			
-		confAggr.setOutputKeyClass(Text.class); 
-		confAggr.setOutputValueClass(Text.class); 
+		confAggr.setOutputKeyClass(ItemsetWritable.class); 
+		confAggr.setOutputValueClass(FrequencyEstimateWritable.class); 
+		if (! conf.getBoolean("PARMM.textOutput", false))
+		{
+			confAggr.setOutputFormat(SequenceFileOutputFormat.class);
+		}
 			
-		confAggr.setMapperClass(AggregateMapper.class);
-		confAggr.setReducerClass(AggregateReducer.class);
+		Path bucketsPath = null;
+		if (mergeAggregation)
+		{
+			// One map task per bucket, reading its number from a line of
+			// the buckets file. No shuffle, no reduce.
+			confAggr.set("PARMM.localFIsPath", args[9]);
+			confAggr.setMapperClass(MergeAggregateMapper.class);
+			confAggr.setNumReduceTasks(0);
+			confAggr.setInputFormat(NLineInputFormat.class);
+			bucketsPath = new Path(args[9] + "_buckets");
+			FSDataOutputStream bucketsOut = bucketsPath.getFileSystem(confAggr).create(bucketsPath, true);
+			for (int b = 0; b < aggrBuckets; b++)
+			{
+				bucketsOut.writeBytes(b + "\n");
+			}
+			bucketsOut.close();
+			FileInputFormat.addInputPath(confAggr, bucketsPath);
+		}
+		else
+		{
+			confAggr.setMapperClass(AggregateMapper.class);
+			confAggr.setCombinerClass(AggregateCombiner.class);
+			confAggr.setReducerClass(AggregateReducer.class);
 			
-		confAggr.setInputFormat(CombineSequenceFileInputFormat.class);
-		SequenceFileInputFormat.addInputPath(confAggr, new Path(args[9]));
+			confAggr.setInputFormat(CombineSequenceFileInputFormat.class);
+			SequenceFileInputFormat.addInputPath(confAggr, new Path(args[9]));
+		}
 
 		FileOutputFormat.setOutputPath(confAggr, new Path(args[10]));
 
@@ -330,6 +372,25 @@ public class MRDriver extends Configured implements Tool
 		RunningJob FIMjob = JobClient.runJob(conf);
 		long FIMjob_end_time = System.currentTimeMillis(); 
 
+		Path aggrSplitsPath = null;
+		if (! mergeAggregation)
+		{
+			int aggrReducersNum = getAggrReducersNum(confAggr, new Path(args[9]));
+			System.out.println("aggregation reducers: " + aggrReducersNum);
+			confAggr.setNumReduceTasks(aggrReducersNum);
+			if (aggrReducersNum > 1)
+			{
+				FileSystem splitsFs = FileSystem.get(URI.create("aggrSplits.bin"), confAggr);
+				aggrSplitsPath = new Path("aggrSplits.bin");
+				DataOutputStream splitsOut = new DataOutputStream(new BufferedOutputStream(splitsFs.create(aggrSplitsPath, true)));
+				AggregatePartitioner.writeSplits(splitsOut, new Path(args[9]), confAggr,
+						aggrReducersNum, AGGR_SAMPLES_PER_REDUCER * aggrReducersNum);
+				splitsOut.close();
+				DistributedCache.addCacheFile(new URI(splitsFs.getWorkingDirectory() + "/aggrSplits.bin#aggrSplits.bin"), confAggr);
+				confAggr.setPartitionerClass(AggregatePartitioner.class);
+			}
+		}
+
 		RunningJob aggregateJob = JobClient.runJob(confAggr);
 		long aggrJob_end_time = System.currentTimeMillis(); 
 			
@@ -339,8 +400,24 @@ public class MRDriver extends Configured implements Tool
 		long aggrJob_runtime = aggrJob_end_time - FIMjob_end_time; 
 			
 		if (args[7].equals("4")) {
-			// Remove samplesMap file 
-			fs.delete(samplesMapPath, false);
+			// Remove samplesIndex file 
+			fs.delete(samplesIndexPath, false);
+		}
+		else if (args[7].equals("5")) {
+			// Remove toSampleArr file 
+			fs.delete(toSampleArrPath, false);
+		}
+		if (itemRanksPath != null) {
+			// Remove itemRanks file 
+			itemRanksPath.getFileSystem(conf).delete(itemRanksPath, false);
+		}
+		if (bucketsPath != null) {
+			// Remove buckets file 
+			bucketsPath.getFileSystem(confAggr).delete(bucketsPath, false);
+		}
+		if (aggrSplitsPath != null) {
+			// Remove aggrSplits file 
+			aggrSplitsPath.getFileSystem(confAggr).delete(aggrSplitsPath, false);
 		}
 
 		Counters counters = FIMjob.getCounters();
@@ -590,5 +667,199 @@ public class MRDriver extends Configured implements Tool
 
 		return 0;
 	}
+
+	/**
+	 * Compute the number of "votes" (local frequent appearances) an
+	 * itemset needs to be declared globally frequent.
+	 */
+	public static int computeReqApproxNum(int numSamples, double delta, double phi)
+	{
+		// The +1 at the end is needed to ensure reqApproxNum > numsamples / 2.
+		return (int) Math.floor((numSamples*(1-phi))-Math.sqrt(numSamples*(1-phi)*2*Math.log(1/delta))) + 1;
+	}
+
+	/**
+	 * Compute the size of each sample from the accuracy parameter
+	 * epsilon, the d-index bound d, and the failure probability phi.
+	 */
+	public static int computeSampleSize(float epsilon, int d, double phi)
+	{
+		return (int) Math.ceil((2 / Math.pow(epsilon, 2))*(d + Math.log(1/ phi)));
+	}
+
+	/**
+	 * The minimum number of transactions of the dataset an item must be
+	 * in to be ranked by the pre-pass. With PARMM.pruneItems this is
+	 * (minFreqPercent/100 - epsilon) * datasetSize: the FIMReducers
+	 * mine at minFreqPercent/100 - epsilon/2, so a less frequent item
+	 * is not in any itemset a FIMReducer can output as long as its
+	 * sample is an epsilon/2-approximation of the dataset.
+	 *
+	 * That only holds with probability at least 1 - phi for each sample.
+	 * If a sample fails to be an approximation, an item below the
+	 * threshold can be locally frequent in it, and pruning removes
+	 * itemsets that the FIMReducer would otherwise have output, which can
+	 * change the global result.
+	 */
+	public static long getMinItemCount(JobConf conf)
+	{
+		if (! conf.getBoolean("PARMM.pruneItems", false))
+		{
+			return 1;
+		}
+		double minFreq = conf.getInt("PARMM.minFreqPercent", 20) / 100.0
+			- conf.getFloat("PARMM.epsilon", (float) 0.05);
+		long minCount = (long) Math.ceil(minFreq * conf.getInt("PARMM.datasetSize", 1000));
+		return Math.max(1, minCount);
+	}
+
+	/**
+	 * The number of reducers of the aggregation job: PARMM.aggrReducersNum
+	 * if set, otherwise one per PARMM.aggrBytesPerReducer bytes of the
+	 * output of the FIM job in localFIsPath, but no more than the cluster
+	 * can run at once.
+	 */
+	private int getAggrReducersNum(JobConf confAggr, Path localFIsPath) throws IOException
+	{
+		int reducersNum = confAggr.getInt("PARMM.aggrReducersNum", 0);
+		if (reducersNum > 0)
+		{
+			return reducersNum;
+		}
+		long bytesPerReducer = confAggr.getLong("PARMM.aggrBytesPerReducer", 128L * 1024 * 1024);
+		long outputLength = localFIsPath.getFileSystem(confAggr).getContentSummary(localFIsPath).getLength();
+		long needed = Math.max(1, (outputLength + bytesPerReducer - 1) / bytesPerReducer);
+		int capacity = new JobClient(confAggr).getClusterStatus().getMaxReduceTasks();
+		return (int) Math.max(1, Math.min(needed, capacity));
+	}
+
+	/**
+	 * Run the item count pre-pass over the given input and return the
+	 * number of transactions containing each item (indexed by item).
+	 * The job output, written to countsPath, is deleted.
+	 */
+	private long[] countItems(Path inputPath, Path countsPath) throws IOException
+	{
+		JobConf confCount = new JobConf(getConf());
+		confCount.setBoolean("mapred.map.tasks.speculative.execution", true); 
+		confCount.setBoolean("mapred.reduce.tasks.speculative.execution", true); 
+		confCount.setInt("mapred.task.timeout", MR_TIMEOUT_MILLI); 
+		confCount.setJarByClass(MRDriver.class);
+
+		confCount.setOutputKeyClass(IntWritable.class); 
+		confCount.setOutputValueClass(LongWritable.class); 
+
+		confCount.setMapperClass(ItemCountMapper.class);
+		confCount.setCombinerClass(LongSumReducer.class);
+		confCount.setReducerClass(LongSumReducer.class);
+
+		confCount.setInputFormat(SequenceFileInputFormat.class);
+		SequenceFileInputFormat.addInputPath(confCount, inputPath);
+		confCount.setOutputFormat(SequenceFileOutputFormat.class);
+		SequenceFileOutputFormat.setOutputPath(confCount, countsPath);
+
+		JobClient.runJob(confCount);
+
+		FileSystem fs = countsPath.getFileSystem(confCount);
+		long[] counts = new long[1024];
+		IntWritable item = new IntWritable();
+		LongWritable count = new LongWritable();
+		for (FileStatus status : fs.listStatus(countsPath))
+		{
+			if (! status.getPath().getName().startsWith("part-"))
+			{
+				continue;
+			}
+			SequenceFile.Reader reader = new SequenceFile.Reader(fs, status.getPath(), confCount);
+			while (reader.next(item, count))
+			{
+				if (item.get() >= counts.length)
+				{
+					counts = Arrays.copyOf(counts, Math.max(item.get() + 1, 2 * counts.length));
+				}
+				counts[item.get()] += count.get();
+			}
+			reader.close();
+		}
+		fs.delete(countsPath, true);
+		return counts;
+	}
+
+	/**
+	 * Draw the samples used by InputSamplerMapper (mapper id 4):
+	 * numSamples*sampleSize transaction ids uniformly at random with
+	 * replacement, the i-th draw going to sample i % numSamples. Each
+	 * draw is packed in a long, the transaction id in the upper 32 bits
+	 * and the sample id in the lower ones, and the draws are sorted, as
+	 * SamplesIndex.write() expects them.
+	 */
+	public static long[] createSamplesDraws(int numSamples, int sampleSize, int datasetSize, Random rand)
+	{
+		long[] draws = new long[numSamples * sampleSize];
+		for (int i = 0; i < draws.length; i++)
+		{
+			draws[i] = ((long) rand.nextInt(datasetSize) << 32) | (i % numSamples);
+		}
+		Arrays.sort(draws);
+		return draws;
+	}
+
+	/**
+	 * Extract, for each sample, a random integer partition of the
+	 * sample size into up to mapTasksNum parts, used by
+	 * RandIntPartSamplerMapper (mapper id 5). Entry [i][j] is the number
+	 * of transactions map task i must send to sample j.
+	 *
+	 * XXX I'm not sure this is a correct way to do it.
+	 */
+	public static int[][] createToSampleArr(int numSamples, int sampleSize, int mapTasksNum, Random rand)
+	{
+		int[][] toSampleArr = new int[mapTasksNum][numSamples];
+		for (int j = 0; j < numSamples; j++)
+		{
+			int[] tempToSampleArr = new int[mapTasksNum];
+			int sum = 0;
+			int i;
+			for (i = 0; i < mapTasksNum -1; i++)
+			{
+				int size = rand.nextInt(sampleSize - sum);
+				tempToSampleArr[i] = size;
+				sum += size;
+				if (sum > numSamples * sampleSize)
+				{
+					System.out.println("Something went wrong generating the sample Sizes");
+					System.exit(1);
+				}
+				if (sum == sampleSize)
+				{
+					break;
+				}
+			}
+			if (i == mapTasksNum -1) 
+			{
+				tempToSampleArr[i] = sampleSize - sum;
+			}
+			else 
+			{
+				for (; i < mapTasksNum; i++)
+				{
+					tempToSampleArr[i] = 0;
+				}
+			}
+			// Same swaps as Collections.shuffle()
+			for (i = mapTasksNum; i > 1; i--)
+			{
+				int k = rand.nextInt(i);
+				int tmp = tempToSampleArr[i - 1];
+				tempToSampleArr[i - 1] = tempToSampleArr[k];
+				tempToSampleArr[k] = tmp;
+			}
+			for (i = 0; i < mapTasksNum; i++)
+			{
+				toSampleArr[i][j] = tempToSampleArr[i];
+			}
+		}
+		return toSampleArr;
+	}
 }
 
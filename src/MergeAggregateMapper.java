@@ -0,0 +1,185 @@
+/*
+ * Copyright 2012-14 Justin A. Debrabant <debrabant@cs.brown.edu> and Matteo Riondato <matteo@cs.brown.edu>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.io.DoubleWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.SequenceFile;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapred.MapReduceBase;
+import org.apache.hadoop.mapred.Mapper;
+import org.apache.hadoop.mapred.OutputCollector;
+import org.apache.hadoop.mapred.Reporter;
+
+/**
+ * Map-only aggregation of the local frequent itemsets, used instead of
+ * AggregateMapper and AggregateReducer with PARMM.mergeAggregation.
+ *
+ * Each input record is the number of a bucket. The FIMReducers wrote the
+ * itemsets of each bucket sorted, one file per task and sorted run (see
+ * BucketedItemsetSink), so all the local frequencies of an itemset are
+ * found together by a k-way merge of the files of its bucket, without
+ * any shuffle or sort. They are then aggregated as AggregateReducer
+ * does.
+ */
+public class MergeAggregateMapper extends MapReduceBase 
+implements Mapper<LongWritable, Text, ItemsetWritable, FrequencyEstimateWritable>
+{
+	private JobConf conf;
+	private int id;
+	private boolean set;
+	private Path localFIsPath;
+	private AggregateReducer aggregator;
+	private double[] freqs = new double[64];
+	private FrequencyEstimateWritable estimate = new FrequencyEstimateWritable();
+
+	@Override
+	public void configure(JobConf conf) 
+	{
+		this.conf = conf;
+		id = conf.getInt("mapred.task.partition", -1);
+		set = false;
+		localFIsPath = new Path(conf.get("PARMM.localFIsPath"));
+		aggregator = new AggregateReducer();
+		aggregator.configure(conf);
+	}
+
+	@Override
+	public void map(LongWritable offset, Text bucket,
+			OutputCollector<ItemsetWritable, FrequencyEstimateWritable> output, Reporter reporter) throws IOException
+	{
+		long startTime = System.currentTimeMillis();
+		if (! set)
+		{
+			// There is no reduce phase, the merge takes its place.
+			reporter.incrCounter("AggregateMapperStart", String.valueOf(id), startTime);
+			reporter.incrCounter("AggregateMapperEnd", String.valueOf(id), startTime);
+			reporter.incrCounter("AggregateReducerStart", String.valueOf(id), startTime);
+			reporter.incrCounter("AggregateReducerEnd", String.valueOf(id), startTime);
+			set = true;
+		}
+
+		FileSystem fs = localFIsPath.getFileSystem(conf);
+		String pattern = String.format("bucket-%05d-*", Integer.parseInt(bucket.toString().trim()));
+		FileStatus[] files = fs.globStatus(new Path(localFIsPath, pattern));
+		PriorityQueue<BucketReader> readers = new PriorityQueue<BucketReader>(Math.max(1, files == null ? 0 : files.length));
+		try
+		{
+			if (files != null)
+			{
+				for (FileStatus file : files)
+				{
+					BucketReader reader = new BucketReader(new SequenceFile.Reader(fs, file.getPath(), conf));
+					if (reader.next())
+					{
+						readers.add(reader);
+					}
+					else
+					{
+						reader.close();
+					}
+				}
+			}
+
+			ItemsetWritable itemset = new ItemsetWritable();
+			while (! readers.isEmpty())
+			{
+				// Gather the frequencies of the smallest itemset
+				BucketReader reader = readers.poll();
+				itemset.set(reader.itemset.getItems(), reader.itemset.size());
+				int valuesNum = 0;
+				while (true)
+				{
+					if (valuesNum == freqs.length)
+					{
+						freqs = Arrays.copyOf(freqs, 2 * freqs.length);
+					}
+					freqs[valuesNum++] = reader.freq.get();
+					if (reader.next())
+					{
+						readers.add(reader);
+					}
+					else
+					{
+						reader.close();
+					}
+					if (readers.isEmpty() || readers.peek().itemset.compareTo(itemset) != 0)
+					{
+						break;
+					}
+					reader = readers.poll();
+				}
+
+				if (aggregator.estimate(freqs, valuesNum, estimate))
+				{
+					output.collect(itemset, estimate);
+				}
+				reporter.progress();
+			}
+		}
+		finally
+		{
+			for (BucketReader reader : readers)
+			{
+				reader.close();
+			}
+		}
+
+		long endTime = System.currentTimeMillis();
+		reporter.incrCounter("AggregateMapperEnd", String.valueOf(id), endTime-startTime);
+		reporter.incrCounter("AggregateReducerEnd", String.valueOf(id), endTime-startTime);
+	}
+
+	/**
+	 * A bucket file being merged, positioned on its current record.
+	 */
+	private static class BucketReader implements Comparable<BucketReader>
+	{
+		private final SequenceFile.Reader reader;
+		private final ItemsetWritable itemset = new ItemsetWritable();
+		private final DoubleWritable freq = new DoubleWritable();
+
+		public BucketReader(SequenceFile.Reader reader)
+		{
+			this.reader = reader;
+		}
+
+		/** Move to the next record, false at the end of the file. */
+		public boolean next() throws IOException
+		{
+			return reader.next(itemset, freq);
+		}
+
+		public void close() throws IOException
+		{
+			reader.close();
+		}
+
+		@Override
+		public int compareTo(BucketReader other)
+		{
+			return itemset.compareTo(other.itemset);
+		}
+	}
+}
@@ -18,7 +18,6 @@
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Hashtable;
-import java.util.Random;
 
 import org.apache.hadoop.filecache.DistributedCache;
 import org.apache.hadoop.fs.FileSystem;
@@ -28,7 +27,6 @@ import org.apache.hadoop.io.IntWritable;
 import org.apache.hadoop.io.IOUtils;
 import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.MapFile;
-import org.apache.hadoop.io.Text;
 import org.apache.hadoop.io.Writable;
 import org.apache.hadoop.mapred.JobConf;
 import org.apache.hadoop.mapred.MapReduceBase;
@@ -38,22 +36,24 @@ import org.apache.hadoop.mapred.Reporter;
 import org.apache.hadoop.util.ReflectionUtils;
 
 public class PartitionMapper extends MapReduceBase 
-implements Mapper<LongWritable, Text, IntWritable, Text>
+implements Mapper<LongWritable, ItemsetWritable, IntWritable, ItemsetWritable>
 {
 	private int reducersNum;
+	private CounterRandom rand;
 	
 	@Override
 	public void configure(JobConf conf) {
 		reducersNum = conf.getInt("PARMM.reducersNum", 64);
+		rand = new CounterRandom(conf.getLong("PARMM.seed", 0), 0);
 	}
 	
 	@Override
-	public void map(LongWritable lineNum, Text value,
-					OutputCollector<IntWritable, Text> output,
+	public void map(LongWritable lineNum, ItemsetWritable value,
+					OutputCollector<IntWritable, ItemsetWritable> output,
 					Reporter reporter) throws IOException
 	{
-		Random rand = new Random();
-		
+		// The draw only depends on the seed and on the transaction
+		rand.setStream(lineNum.get());
 		int key = rand.nextInt(reducersNum);
 		output.collect(new IntWritable(key), value);
 	}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2012-14 Justin A. Debrabant <debrabant@cs.brown.edu> and Matteo Riondato <matteo@cs.brown.edu>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import java.io.IOException;
+
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapred.OutputCollector;
+
+/**
+ * Removes from the transactions sent to the samples the items that are
+ * not ranked by the item count pre-pass, i.e., the items that cannot be
+ * frequent in any sample unless the sample fails to be an
+ * epsilon/2-approximation (see MRDriver.getMinItemCount()), before they
+ * are shuffled to the FIMReducers.
+ *
+ * A transaction left empty is not sent. The number of such draws is
+ * kept per sample and sent once, as an empty WeightedItemsetWritable,
+ * by flush(), so that the FIMReducers still receive the whole sample
+ * size and compute the frequencies over it.
+ */
+public class PruningCollector implements OutputCollector<IntWritable, ItemsetWritable>
+{
+	private final boolean[] keep;
+	private final int[] dropped;
+	private OutputCollector<IntWritable, ItemsetWritable> output;
+	private int[] items = new int[64];
+	private WeightedItemsetWritable pruned = new WeightedItemsetWritable();
+	private IntWritable sampleID = new IntWritable();
+
+	/**
+	 * @param rankedItems the ranking shipped by the pre-pass, as
+	 * returned by ItemRanks.read().
+	 */
+	public PruningCollector(int[] rankedItems, int samplesNum)
+	{
+		int maxItem = 0;
+		for (int i = 1; i < rankedItems.length; i++)
+		{
+			maxItem = Math.max(maxItem, rankedItems[i]);
+		}
+		keep = new boolean[maxItem + 1];
+		for (int i = 1; i < rankedItems.length; i++)
+		{
+			keep[rankedItems[i]] = true;
+		}
+		dropped = new int[samplesNum];
+	}
+
+	/**
+	 * Create the collector for a map task.
+	 *
+	 * @return null if PARMM.pruneItems is not set.
+	 */
+	public static PruningCollector create(JobConf conf) throws IOException
+	{
+		if (! conf.getBoolean("PARMM.pruneItems", false))
+		{
+			return null;
+		}
+		int[] rankedItems = ItemRanks.readFromCache(conf);
+		if (rankedItems == null)
+		{
+			throw new IOException("PARMM.pruneItems is set but there is no item ranking");
+		}
+		return new PruningCollector(rankedItems, conf.getInt("PARMM.reducersNum", 64));
+	}
+
+	/**
+	 * Set the collector the pruned transactions are sent to.
+	 */
+	public PruningCollector wrap(OutputCollector<IntWritable, ItemsetWritable> output)
+	{
+		this.output = output;
+		return this;
+	}
+
+	@Override
+	public void collect(IntWritable key, ItemsetWritable value) throws IOException
+	{
+		int count = value instanceof WeightedItemsetWritable ?
+			((WeightedItemsetWritable) value).getCount() : 1;
+		int[] valueItems = value.getItems();
+		int size = value.size();
+		if (items.length < size)
+		{
+			items = new int[Math.max(size, 2 * items.length)];
+		}
+		int length = 0;
+		for (int i = 0; i < size; i++)
+		{
+			int item = valueItems[i];
+			if (item < keep.length && keep[item])
+			{
+				items[length++] = item;
+			}
+		}
+		if (length == 0)
+		{
+			dropped[key.get()] += count;
+			return;
+		}
+		pruned.set(items, length, count);
+		output.collect(key, pruned);
+	}
+
+	/**
+	 * Send, for every sample, the number of its draws dropped because
+	 * they were left empty.
+	 */
+	public void flush() throws IOException
+	{
+		for (int i = 0; i < dropped.length; i++)
+		{
+			if (dropped[i] > 0)
+			{
+				sampleID.set(i);
+				pruned.set(items, 0, dropped[i]);
+				output.collect(sampleID, pruned);
+				dropped[i] = 0;
+			}
+		}
+	}
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2012-14 Justin A. Debrabant <debrabant@cs.brown.edu> and Matteo Riondato <matteo@cs.brown.edu>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import java.io.IOException;
+
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapred.MapRunner;
+import org.apache.hadoop.mapred.OutputCollector;
+import org.apache.hadoop.mapred.RecordReader;
+import org.apache.hadoop.mapred.Reporter;
+
+/**
+ * Runs any of the sampler mappers with its output going through a
+ * PruningCollector, so that no mapper needs to know about pruning.
+ * Used with PARMM.pruneItems.
+ */
+public class PruningMapRunner extends MapRunner<LongWritable, ItemsetWritable, IntWritable, ItemsetWritable>
+{
+	private JobConf conf;
+
+	@Override
+	public void configure(JobConf conf)
+	{
+		this.conf = conf;
+		super.configure(conf);
+	}
+
+	@Override
+	public void run(RecordReader<LongWritable, ItemsetWritable> input,
+			OutputCollector<IntWritable, ItemsetWritable> output,
+			Reporter reporter) throws IOException
+	{
+		PruningCollector pruning = PruningCollector.create(conf);
+		if (pruning == null)
+		{
+			super.run(input, output, reporter);
+			return;
+		}
+		// The mapper is closed, and may still emit, inside run().
+		super.run(input, pruning.wrap(output), reporter);
+		pruning.flush();
+	}
+}
@@ -14,76 +14,168 @@
  * limitations under the License.
  *
  */
-
 import java.io.IOException;
 import java.util.Arrays;
-import java.util.Collections;
-import java.util.Random;
 
-import org.apache.hadoop.io.DefaultStringifier;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.IntWritable;
-import org.apache.hadoop.io.NullWritable;
-import org.apache.hadoop.io.Text;
-import org.apache.hadoop.io.Writable;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.io.SequenceFile;
 import org.apache.hadoop.mapred.JobConf;
 import org.apache.hadoop.mapred.MapReduceBase;
 import org.apache.hadoop.mapred.Mapper;
 import org.apache.hadoop.mapred.OutputCollector;
 import org.apache.hadoop.mapred.Reporter;
 
+/**
+ * Each map task draws, uniformly with replacement from the transactions
+ * of its split, the number of transactions it has to send to each
+ * sample, from its row of the SampleAllocations file in the
+ * DistributedCache.
+ *
+ * The positions of the draws in the split are chosen up front, sorted,
+ * and the transactions are emitted in a single sequential pass over the
+ * records, so the memory used is proportional to the number of draws,
+ * not to the size of the split.
+ *
+ * The number of transactions in the split is found from the transaction
+ * ids, which must be 0 ... datasetSize-1 and sorted in the input, as
+ * written by Txt2SeqConverter: it is the id of the first record of the
+ * next split (found by seeking to the first sync mark after the end of
+ * this split) minus the id of the first record of this one.
+ */
 public class RandIntPartSamplerMapper extends MapReduceBase 
-implements Mapper<NullWritable, TextArrayWritable, IntWritable, Text>
+implements Mapper<LongWritable, ItemsetWritable, IntWritable, ItemsetWritable>
 {
 	private int id;
-	private int reducersNum;
+	private int datasetSize;
+	private SampleAllocations toSampleArr;
 	private int toSample;
-	private IntWritable[] sampleDestinations;
+	private CounterRandom rand;
+	private JobConf conf;
+	private Reporter reporter;
+
+	/**
+	 * The draws, sorted: position in the split in the upper 32 bits,
+	 * destination sample in the lower 32 bits.
+	 */
+	private long[] draws;
+	private int nextDraw;
+	private long transactionIndex;
+	private IntWritable sampleID = new IntWritable();
 
 	@Override
 	public void configure(JobConf conf) {
+		this.conf = conf;
 		id = conf.getInt("mapred.task.partition", -1);
-		reducersNum = conf.getInt("PARMM.reducersNum", 1000);
+		datasetSize = conf.getInt("PARMM.datasetSize", 1000);
+		// The draws of a task only depend on the seed and on the task id
+		rand = new CounterRandom(conf.getLong("PARMM.seed", 0), id);
 		try
 		{
-			int id = conf.getInt("mapred.task.partition", -1);
 			System.out.println("id: " + id);
-			IntWritable[] toSampleArr = DefaultStringifier.loadArray(conf, "PARMM.toSampleArr_" + id, IntWritable.class);
+			// Memory-mapped, only the row of this task is read.
+			toSampleArr = SampleAllocations.openFromCache(conf, id);
 			toSample = 0;
-			for (IntWritable toSampleRed : toSampleArr)
+			for (int k = 0; k < toSampleArr.getSamplesNum(); k++)
 			{
-				toSample += toSampleRed.get();
+				toSample += toSampleArr.get(k);
 			}
 			System.out.println("toSample: " + toSample);
-			sampleDestinations = new IntWritable[toSample];
-			int i = 0;
-			for (int k = 0; k < toSampleArr.length; k++)
-			{
-				for (int j = 0; j < toSampleArr[k].get(); j++)
-				{
-					sampleDestinations[i++] = new IntWritable(k);
-				}
-			}
-			Collections.shuffle(Arrays.asList(sampleDestinations));
 		}
-		catch (IOException e) {} 
+		catch (IOException e) 
+		{ 
+			System.err.println(e.getMessage());
+		} 
+		draws = null;
+		reporter = null;
 	}
 	
 	@Override
-	public void map(NullWritable lineNum, TextArrayWritable transactionsArrWr,
-					OutputCollector<IntWritable, Text> output, 
+	public void map(LongWritable lineNum, ItemsetWritable transaction,
+					OutputCollector<IntWritable, ItemsetWritable> output, 
 					Reporter reporter) throws IOException
 	{
-		reporter.incrCounter("FIMMapperStart", String.valueOf(id), System.currentTimeMillis());
-		Random rand = new Random();
-		Writable[] transactions = transactionsArrWr.get();
-		int transactionsNum = transactions.length;
-		System.out.println("transactionsNum: " + transactionsNum);
-		for (int i = 0; i < toSample; i++)
+		if (draws == null)
+		{
+			// close() gets no Reporter, keep this one for the end time.
+			this.reporter = reporter;
+			reporter.incrCounter("FIMMapperStart", String.valueOf(id), System.currentTimeMillis());
+			long transactionsNum = getSplitEndID() - lineNum.get();
+			System.out.println("transactionsNum: " + transactionsNum);
+			drawPositions(transactionsNum);
+			transactionIndex = 0;
+		}
+
+		while (nextDraw < toSample && (draws[nextDraw] >>> 32) == transactionIndex)
 		{
-			int sampledIndex = rand.nextInt(transactionsNum);
-			output.collect(sampleDestinations[i], (Text) transactions[sampledIndex]);
+			sampleID.set((int) draws[nextDraw]);
+			output.collect(sampleID, transaction);
+			nextDraw++;
+		}
+		transactionIndex++;
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		if (draws != null && nextDraw < toSample)
+		{
+			throw new IOException("The split ended after " + transactionIndex + " transactions, "
+				+ (toSample - nextDraw) + " draws were not emitted: are the transaction ids contiguous?");
+		}
+		if (reporter != null)
+		{
+			reporter.incrCounter("FIMMapperEnd", String.valueOf(id), System.currentTimeMillis());
 		}
-		reporter.incrCounter("FIMMapperEnd", String.valueOf(id), System.currentTimeMillis());
 	}
-}
 
+	/**
+	 * Choose the positions in the split of the transactions sent to
+	 * each sample.
+	 */
+	private void drawPositions(long transactionsNum)
+	{
+		draws = new long[toSample];
+		int i = 0;
+		for (int k = 0; k < toSampleArr.getSamplesNum(); k++)
+		{
+			int toSampleRed = toSampleArr.get(k);
+			for (int j = 0; j < toSampleRed; j++)
+			{
+				long position = (long) (rand.nextDouble() * transactionsNum);
+				draws[i++] = (position << 32) | k;
+			}
+		}
+		Arrays.sort(draws);
+		nextDraw = 0;
+	}
+
+	/**
+	 * The id of the first transaction after this split, i.e. the first
+	 * one after the first sync mark following the end of the split, or
+	 * datasetSize if there is none.
+	 */
+	private long getSplitEndID() throws IOException
+	{
+		Path file = new Path(conf.get("map.input.file"));
+		long end = conf.getLong("map.input.start", 0) + conf.getLong("map.input.length", 0);
+		FileSystem fs = file.getFileSystem(conf);
+		SequenceFile.Reader reader = new SequenceFile.Reader(fs, file, conf);
+		try
+		{
+			reader.sync(end);
+			LongWritable transactionID = new LongWritable();
+			if (reader.next(transactionID))
+			{
+				return transactionID.get();
+			}
+			return datasetSize;
+		}
+		finally
+		{
+			reader.close();
+		}
+	}
+}
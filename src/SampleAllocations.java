@@ -0,0 +1,121 @@
+/*
+ * Copyright 2012-14 Justin A. Debrabant <debrabant@cs.brown.edu> and Matteo Riondato <matteo@cs.brown.edu>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import org.apache.hadoop.filecache.DistributedCache;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.mapred.JobConf;
+
+/**
+ * The number of transactions each map task of RandIntPartSamplerMapper
+ * (mapper id 5) sends to each sample, stored as a file of ints that
+ * every task memory-maps, reading only its own row, instead of being
+ * stored in the job configuration.
+ *
+ * Format (big-endian, as written by DataOutputStream):
+ *   int    tasksNum                number of map tasks
+ *   int    samplesNum              number of samples
+ *   int    counts[tasksNum][samplesNum]
+ *                                  row-major, counts[i][j] is the number
+ *                                  of transactions task i sends to sample j
+ */
+public class SampleAllocations
+{
+	private static final int HEADER_SIZE = 8;
+
+	private final int samplesNum;
+	private final MappedByteBuffer counts;
+
+	/**
+	 * Memory-map the row of the given task in the given file.
+	 */
+	public SampleAllocations(File file, int task) throws IOException
+	{
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try
+		{
+			int tasksNum = raf.readInt();
+			samplesNum = raf.readInt();
+			if (task < 0 || task >= tasksNum)
+			{
+				throw new IOException("No sample allocations for task " + task + " (" + tasksNum + " tasks)");
+			}
+			counts = raf.getChannel().map(FileChannel.MapMode.READ_ONLY,
+					HEADER_SIZE + 4L * samplesNum * task, 4L * samplesNum);
+		}
+		finally
+		{
+			// The mapping stays valid after the channel is closed.
+			raf.close();
+		}
+	}
+
+	/**
+	 * Memory-map the row of the given task in the allocations shipped in
+	 * the DistributedCache of the task, found by their name among the
+	 * other cache files.
+	 */
+	public static SampleAllocations openFromCache(JobConf conf, int task) throws IOException
+	{
+		Path[] localFiles = DistributedCache.getLocalCacheFiles(conf);
+		if (localFiles != null)
+		{
+			for (Path localFile : localFiles)
+			{
+				if (localFile.getName().startsWith("toSampleArr"))
+				{
+					return new SampleAllocations(new File(localFile.toString()), task);
+				}
+			}
+		}
+		throw new IOException("No sample allocations in the DistributedCache");
+	}
+
+	public int getSamplesNum()
+	{
+		return samplesNum;
+	}
+
+	/** Number of transactions the task sends to the given sample. */
+	public int get(int sample)
+	{
+		return counts.getInt(4 * sample);
+	}
+
+	/**
+	 * Write the allocations. Entry [i][j] is the number of transactions
+	 * map task i sends to sample j.
+	 */
+	public static void write(DataOutputStream out, int[][] toSampleArr) throws IOException
+	{
+		int samplesNum = toSampleArr.length > 0 ? toSampleArr[0].length : 0;
+		out.writeInt(toSampleArr.length);
+		out.writeInt(samplesNum);
+		for (int i = 0; i < toSampleArr.length; i++)
+		{
+			for (int j = 0; j < samplesNum; j++)
+			{
+				out.writeInt(toSampleArr[i][j]);
+			}
+		}
+	}
+}
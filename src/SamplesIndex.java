@@ -0,0 +1,190 @@
+/*
+ * Copyright 2012-14 Justin A. Debrabant <debrabant@cs.brown.edu> and Matteo Riondato <matteo@cs.brown.edu>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import org.apache.hadoop.filecache.DistributedCache;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.mapred.JobConf;
+
+/**
+ * The samples map used by InputSamplerMapper (mapper id 4), stored as a
+ * file of primitive arrays that the map tasks memory-map instead of
+ * deserializing.
+ *
+ * Format (big-endian, as written by DataOutputStream):
+ *   int    keysNum                 number of distinct transaction ids
+ *   int    entriesNum              number of draws
+ *   long   ids[keysNum]            sorted transaction ids
+ *   int    starts[keysNum + 1]     ids[k] was drawn for the samples
+ *                                  samples[starts[k]] ... samples[starts[k+1]-1]
+ *   int    samples[entriesNum]     sample ids
+ *
+ * A transaction drawn more than once for the same sample appears that
+ * many times in its list, as in the sampling with replacement.
+ */
+public class SamplesIndex
+{
+	private static final int HEADER_SIZE = 8;
+
+	private final int keysNum;
+	private final MappedByteBuffer ids;
+	private final MappedByteBuffer starts;
+	private final MappedByteBuffer samples;
+
+	/**
+	 * Memory-map the given index file. Nothing is read until find() is
+	 * called.
+	 */
+	public SamplesIndex(File file) throws IOException
+	{
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try
+		{
+			FileChannel channel = raf.getChannel();
+			keysNum = raf.readInt();
+			int entriesNum = raf.readInt();
+			long idsPos = HEADER_SIZE;
+			long startsPos = idsPos + 8L * keysNum;
+			long samplesPos = startsPos + 4L * (keysNum + 1);
+			ids = channel.map(FileChannel.MapMode.READ_ONLY, idsPos, 8L * keysNum);
+			starts = channel.map(FileChannel.MapMode.READ_ONLY, startsPos, 4L * (keysNum + 1));
+			samples = channel.map(FileChannel.MapMode.READ_ONLY, samplesPos, 4L * entriesNum);
+		}
+		finally
+		{
+			// The mappings stay valid after the channel is closed.
+			raf.close();
+		}
+	}
+
+	/**
+	 * Memory-map the index shipped in the DistributedCache of the task,
+	 * found by its name among the other cache files.
+	 */
+	public static SamplesIndex openFromCache(JobConf conf) throws IOException
+	{
+		Path[] localFiles = DistributedCache.getLocalCacheFiles(conf);
+		if (localFiles != null)
+		{
+			for (Path localFile : localFiles)
+			{
+				if (localFile.getName().startsWith("samplesIndex"))
+				{
+					return new SamplesIndex(new File(localFile.toString()));
+				}
+			}
+		}
+		throw new IOException("No samples index in the DistributedCache");
+	}
+
+	/**
+	 * Binary search the given transaction id.
+	 *
+	 * @return the index of the id, to be passed to getStart() and
+	 * getEnd(), or -1 if the transaction is not in any sample.
+	 */
+	public int find(long transactionID)
+	{
+		int low = 0;
+		int high = keysNum - 1;
+		while (low <= high)
+		{
+			int mid = (low + high) >>> 1;
+			long id = ids.getLong(8 * mid);
+			if (id < transactionID)
+			{
+				low = mid + 1;
+			}
+			else if (id > transactionID)
+			{
+				high = mid - 1;
+			}
+			else
+			{
+				return mid;
+			}
+		}
+		return -1;
+	}
+
+	/** Position of the first sample of the id at the given index. */
+	public int getStart(int index)
+	{
+		return starts.getInt(4 * index);
+	}
+
+	/** Position after the last sample of the id at the given index. */
+	public int getEnd(int index)
+	{
+		return starts.getInt(4 * (index + 1));
+	}
+
+	/** The sample id at the given position. */
+	public int getSample(int pos)
+	{
+		return samples.getInt(4 * pos);
+	}
+
+	/**
+	 * Write an index. Each element of draws is a transaction id in the
+	 * upper 32 bits and the id of the sample it was drawn for in the
+	 * lower 32 bits, and draws must be sorted.
+	 */
+	public static void write(DataOutputStream out, long[] draws) throws IOException
+	{
+		int keysNum = 0;
+		for (int i = 0; i < draws.length; i++)
+		{
+			if (i == 0 || (draws[i] >>> 32) != (draws[i - 1] >>> 32))
+			{
+				keysNum++;
+			}
+		}
+		if (8L * keysNum > Integer.MAX_VALUE || 4L * draws.length > Integer.MAX_VALUE)
+		{
+			throw new IOException("Too many draws for a samples index: " + draws.length);
+		}
+
+		out.writeInt(keysNum);
+		out.writeInt(draws.length);
+		for (int i = 0; i < draws.length; i++)
+		{
+			if (i == 0 || (draws[i] >>> 32) != (draws[i - 1] >>> 32))
+			{
+				out.writeLong(draws[i] >>> 32);
+			}
+		}
+		for (int i = 0; i < draws.length; i++)
+		{
+			if (i == 0 || (draws[i] >>> 32) != (draws[i - 1] >>> 32))
+			{
+				out.writeInt(i);
+			}
+		}
+		out.writeInt(draws.length);
+		for (int i = 0; i < draws.length; i++)
+		{
+			out.writeInt((int) draws[i]);
+		}
+	}
+}
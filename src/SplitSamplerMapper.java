@@ -0,0 +1,220 @@
+/*
+ * Copyright 2012-14 Justin A. Debrabant <debrabant@cs.brown.edu> and Matteo Riondato <matteo@cs.brown.edu>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import java.io.IOException;
+import java.util.PriorityQueue;
+
+import org.apache.hadoop.io.IntWritable;
+import org.apache.hadoop.io.LongWritable;
+import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapred.MapReduceBase;
+import org.apache.hadoop.mapred.Mapper;
+import org.apache.hadoop.mapred.OutputCollector;
+import org.apache.hadoop.mapred.Reporter;
+
+import cern.jet.random.Binomial;
+
+/**
+ * Builds the same samples as InputSamplerMapper (numSamples samples of
+ * sampleSize transactions drawn uniformly with replacement) without the
+ * driver drawing them and shipping them to the map tasks.
+ *
+ * The draws of each sample are allocated over the transaction ids
+ * [0, datasetSize) by a multinomial, generated top-down along a binary
+ * tree of id ranges: the draws of a range are split between its two
+ * halves by a binomial, until single ids are reached. The binomial at
+ * each node is drawn from a CounterRandom stream keyed by the node and
+ * the sample, so every map task computes the same allocation for the
+ * ranges it looks at and only needs to walk down to the ids of its own
+ * split, skipping the other subtrees. Nothing is shared between tasks
+ * but the seed.
+ *
+ * Requires the transaction ids to be 0 ... datasetSize-1 and sorted in
+ * the input, as written by Txt2SeqConverter. Each transaction is sent
+ * at most once to each sample, with the number of times it was drawn.
+ */
+public class SplitSamplerMapper extends MapReduceBase
+implements Mapper<LongWritable, ItemsetWritable, IntWritable, ItemsetWritable>
+{
+	private int id;
+	private int reducersNum;
+	private int datasetSize;
+	private int sampleSize;
+	private CounterRandom rand;
+	private Binomial binomial;
+	private PriorityQueue<SampleWalker> walkers;
+	private boolean started;
+	private Reporter reporter;
+	private IntWritable sampleID = new IntWritable();
+	private WeightedItemsetWritable sampled = new WeightedItemsetWritable();
+
+	@Override
+	public void configure(JobConf conf)
+	{
+		id = conf.getInt("mapred.task.partition", -1);
+		reducersNum = conf.getInt("PARMM.reducersNum", 64);
+		datasetSize = conf.getInt("PARMM.datasetSize", 1000);
+		sampleSize = conf.getInt("PARMM.sampleSize", 1000);
+		rand = new CounterRandom(conf.getLong("PARMM.seed", 0), 0);
+		binomial = new Binomial(1, 0.5, new CounterRandomEngine(rand));
+		walkers = new PriorityQueue<SampleWalker>(reducersNum);
+		started = false;
+		reporter = null;
+	}
+
+	@Override
+	public void map(LongWritable key, ItemsetWritable value,
+					OutputCollector<IntWritable, ItemsetWritable> output,
+					Reporter reporter) throws IOException
+	{
+		long transactionID = key.get();
+		if (! started)
+		{
+			// close() gets no Reporter, keep this one for the end time.
+			this.reporter = reporter;
+			reporter.incrCounter("FIMMapperStart", String.valueOf(id), System.currentTimeMillis());
+			// Position every sample at the first id of the split.
+			for (int i = 0; i < reducersNum; i++)
+			{
+				SampleWalker walker = new SampleWalker(i);
+				if (walker.advance(transactionID))
+				{
+					walkers.add(walker);
+				}
+			}
+			started = true;
+		}
+
+		while (! walkers.isEmpty() && walkers.peek().nextID <= transactionID)
+		{
+			SampleWalker walker = walkers.poll();
+			if (walker.nextID == transactionID)
+			{
+				sampleID.set(walker.sample);
+				sampled.set(value, walker.nextCount);
+				output.collect(sampleID, sampled);
+			}
+			// Ids skipped by the input (if any) are not sampled.
+			if (walker.advance(transactionID + 1))
+			{
+				walkers.add(walker);
+			}
+		}
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		walkers = null;
+		if (reporter != null)
+		{
+			reporter.incrCounter("FIMMapperEnd", String.valueOf(id), System.currentTimeMillis());
+		}
+	}
+
+	/**
+	 * Binomial draw for the node of the id range tree with the given
+	 * index (root 1, children of k at 2k and 2k+1) in the given sample.
+	 */
+	private int drawBinomial(int n, double p, long node, int sample)
+	{
+		if (n == 0)
+		{
+			return 0;
+		}
+		rand.setStream(node * reducersNum + sample);
+		return binomial.nextInt(n, p);
+	}
+
+	/**
+	 * Depth-first walk, in increasing id order, of the ids drawn for one
+	 * sample. The pending subtrees are kept on an explicit stack.
+	 */
+	private class SampleWalker implements Comparable<SampleWalker>
+	{
+		private final int sample;
+		private final int[] low = new int[128];
+		private final int[] high = new int[128];
+		private final int[] count = new int[128];
+		private final long[] node = new long[128];
+		private int top;
+		private long nextID;
+		private int nextCount;
+
+		public SampleWalker(int sample)
+		{
+			this.sample = sample;
+			low[0] = 0;
+			high[0] = datasetSize;
+			count[0] = sampleSize;
+			node[0] = 1;
+			top = 1;
+		}
+
+		/**
+		 * Move to the first id, not smaller than the given one, drawn
+		 * at least once for the sample.
+		 *
+		 * @return false if there is no such id.
+		 */
+		public boolean advance(long fromID)
+		{
+			while (top > 0)
+			{
+				top--;
+				int lo = low[top];
+				int hi = high[top];
+				int c = count[top];
+				long n = node[top];
+				if (c == 0 || hi <= fromID)
+				{
+					continue;
+				}
+				if (hi - lo == 1)
+				{
+					nextID = lo;
+					nextCount = c;
+					return true;
+				}
+				int mid = (lo + hi) >>> 1;
+				int left = drawBinomial(c, (double) (mid - lo) / (hi - lo), n, sample);
+				push(mid, hi, c - left, 2 * n + 1);
+				push(lo, mid, left, 2 * n);
+			}
+			return false;
+		}
+
+		private void push(int lo, int hi, int c, long n)
+		{
+			low[top] = lo;
+			high[top] = hi;
+			count[top] = c;
+			node[top] = n;
+			top++;
+		}
+
+		@Override
+		public int compareTo(SampleWalker other)
+		{
+			if (nextID != other.nextID)
+			{
+				return nextID < other.nextID ? -1 : 1;
+			}
+			return sample - other.sample;
+		}
+	}
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2012-14 Justin A. Debrabant <debrabant@cs.brown.edu> and Matteo Riondato <matteo@cs.brown.edu>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import org.apache.hadoop.io.WritableUtils;
+
+/**
+ * A transaction together with the number of times it was drawn for a
+ * sample, so that a mapper sends one record per (transaction, sample)
+ * instead of one per draw.
+ *
+ * The count is written as a variable-length integer before the items.
+ * Comparisons and equality only look at the items.
+ */
+public class WeightedItemsetWritable extends ItemsetWritable
+{
+	private int count;
+
+	public WeightedItemsetWritable()
+	{
+		super();
+		count = 1;
+	}
+
+	/**
+	 * Set the content to the items of the given transaction, drawn
+	 * count times.
+	 */
+	public void set(ItemsetWritable transaction, int count)
+	{
+		set(transaction.getItems(), transaction.size());
+		this.count = count;
+	}
+
+	/**
+	 * Set the content to the first length elements of the given array,
+	 * which must be sorted and without repetitions, drawn count times.
+	 */
+	public void set(int[] sortedItems, int length, int count)
+	{
+		set(sortedItems, length);
+		this.count = count;
+	}
+
+	public int getCount()
+	{
+		return count;
+	}
+
+	@Override
+	public void write(DataOutput out) throws IOException
+	{
+		WritableUtils.writeVInt(out, count);
+		super.write(out);
+	}
+
+	@Override
+	public void readFields(DataInput in) throws IOException
+	{
+		count = WritableUtils.readVInt(in);
+		super.readFields(in);
+	}
+}
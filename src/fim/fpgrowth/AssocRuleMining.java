@@ -25,6 +25,7 @@ import java.util.*;
 //import javax.swing.*;
 
 import org.apache.hadoop.io.Text;
+import org.apache.hadoop.util.LineReader;
 
 /** Set of utillities to support various Association Rule Mining (ARM) 
  algorithms.
@@ -39,9 +40,9 @@ public class AssocRuleMining {
 	
     protected class RuleNode {
     	/** Antecedent of AR. */
-		protected short[] antecedent;
+		protected int[] antecedent;
 		/** Consequent of AR. */
-		protected short[] consequent;
+		protected int[] consequent;
 		/** The confidence value associate with the rule represented by this
 		 node. */
 		double confidenceForRule=0.0;
@@ -53,7 +54,7 @@ public class AssocRuleMining {
 		 @param cons the consequent (RHS) of the AR.
 		 @param confValue the associated confidence value. */
 		
-		protected RuleNode(short[] ante, short[]cons, double confValue) {
+		protected RuleNode(int[] ante, int[]cons, double confValue) {
 			antecedent        = ante;
 			consequent        = cons;
 			confidenceForRule = confValue;
@@ -66,15 +67,21 @@ public class AssocRuleMining {
     protected RuleNode startRulelist = null;	
     /** 2-D aray to hold input data from data file. Note that within the data
 	 array records are numbered from zero, thus rexcord one has index 0 etc. */
-    protected short[][] dataArray = null;
-    /** 2-D array used to renumber columns for input data in terms of
+    protected int[][] dataArray = null;
+    /** Array used to renumber columns for input data in terms of
 	 frequency of single attributes (reordering will enhance performance
-	 for some ARM algorithms). */
-    protected int[][] conversionArray   = null;
+	 for some ARM algorithms): the new column number of each attribute, 0 if
+	 not renumbered. */
+    protected int[] conversionArray   = null;
+    /** The support of each attribute, indexed as <TT>conversionArray</TT>. 
+	 Kept apart from the column numbers so that both take one int per 
+	 attribute, attribute identifiers being dense integers up to 
+	 <TT>numCols</TT>. */
+    protected int[] conversionSupports = null;
     /** 1-D array used to reconvert input data column numbers to their
 	 original numbering where the input data has been ordered to enhance
 	 computational efficiency. */
-    protected short[] reconversionArray = null;
+    protected int[] reconversionArray = null;
 	
     // Constants
     
@@ -128,7 +135,11 @@ public class AssocRuleMining {
     // Other fields
 	
     /** The input stream. */
-    protected BufferedReader fileInput;
+    protected LineReader fileInput;
+    /** The current line of the input stream. */
+    protected Text inputLine = new Text();
+    /** Parses the lines of the input into items. */
+    protected TransactionParser parser = new TransactionParser();
     /** The file path */
     protected File filePath = null;
 	
@@ -156,6 +167,36 @@ public class AssocRuleMining {
 		transactionsIterator = transactions;
 		
     }
+	
+    /** Constructor for records whose attributes are renumbered according to 
+	 a given ranking (e.g. the frequencies of the items in the whole data 
+	 set) instead of the supports counted in the input data. The conversion 
+	 arrays are defined from the ranking, the records are not stored in the 
+	 data array and their number and the supports are counted as they are 
+	 added (see <TT>FPtree.addToFPtree</TT>).
+	 @param rankedItems the items in rank order, most frequent first 
+	 (index 0 unused).
+	 @param minFreqPercent the minimum support (%). */
+	
+    public AssocRuleMining(int[] rankedItems, float minFreqPercent) {
+		
+		support = minFreqPercent;
+		numOneItemSets = rankedItems.length-1;
+		
+		for (int index=1;index<rankedItems.length;index++) {
+			if (rankedItems[index] > numCols) numCols = rankedItems[index];
+	    }
+		
+		// Define conversion and reconversion arrays, supports start at 0
+		conversionArray    = new int[numCols+1];
+		conversionSupports = new int[numCols+1];
+        reconversionArray  = new int[rankedItems.length];
+		for (int index=1;index<rankedItems.length;index++) {
+            conversionArray[rankedItems[index]] = index;
+			reconversionArray[index] = rankedItems[index];
+	    }
+		isOrderedFlag = true;
+	}
 
 
 
@@ -263,14 +304,12 @@ public class AssocRuleMining {
     public void inputDataSetFromIterator()
     {
       inputFormatOkFlag=true;
-      dataArray = new short[numRows][];
+      dataArray = new int[numRows][];
 
       int rowIndex = 0;
-      String line = null;
       while (transactionsIterator.hasNext()) {
-	line = transactionsIterator.next().toString();
 	// Process line
-	if (!processInputLine(line,rowIndex)) break;
+	if (!processInputLine(transactionsIterator.next(),rowIndex)) break;
 	// Increment first (row) index in 2-D data array
 	rowIndex++;
       }
@@ -339,7 +378,7 @@ public class AssocRuleMining {
 			inputFormatOkFlag=true;
 			numRows = getNumberOfLines(fileName);
 			if (inputFormatOkFlag) {
-				dataArray = new short[numRows][];
+				dataArray = new int[numRows][];
 				// Read file
 				System.out.print("reading transaction data from " + fileName + "...");
 				readInputDataSet();
@@ -369,15 +408,10 @@ public class AssocRuleMining {
 		else openFilePath();
 		
 		// Loop through file incrementing counter
-		// get first row.
-		String line = fileInput.readLine();
-		while (line != null) {
-			checkLine(counter+1,line);
-			StringTokenizer dataLine = new StringTokenizer(line);
-            int numberOfTokens = dataLine.countTokens();
-			if (numberOfTokens == 0) break;
+		while (fileInput.readLine(inputLine) > 0) {
+			if (!checkLine(counter+1,inputLine)) break;
+			if (parser.size() == 0) break;
 			counter++;
-            line = fileInput.readLine();
 	    }
 		
 		// Close file and return
@@ -389,25 +423,25 @@ public class AssocRuleMining {
 	
     /** Check whether given line from input file is of appropriate format
 	 (space separated integers), if incorrectly formatted line found
-	 <TT>inputFormatOkFlag</TT> set to <TT>false</TT>.
+	 <TT>inputFormatOkFlag</TT> set to <TT>false</TT>. The line is parsed
+	 with <TT>parser</TT>.
 	 @param counter the line number in the input file.
-	 @param str the current line from the input file. */
+	 @param line the current line from the input file.
+	 @return true if the line is correctly formatted. */
 	
-    protected void checkLine(int counter, String str) 
+    protected boolean checkLine(int counter, Text line) 
 	{
-		
-        for (int index=0;index <str.length();index++) {
-            if (!Character.isDigit(str.charAt(index)) &&
-				!Character.isWhitespace(str.charAt(index))) 
-			{
-				System.out.println("FILE INPUT ERROR:\n" +
-											  "charcater on line " + counter +
-											  " is not a digit or white space");
-				inputFormatOkFlag = false;
-				haveDataFlag = false;
-				break;
-			}
+		try {
+			parser.parse(line);
+		}
+		catch (NumberFormatException e) {
+			System.out.println("FILE INPUT ERROR:\n" +
+							   "line " + counter + ": " + e.getMessage());
+			inputFormatOkFlag = false;
+			haveDataFlag = false;
+			return(false);
 	    }
+		return(true);
 	}
 	
     /* READ INPUT DATA SET */
@@ -428,17 +462,12 @@ public class AssocRuleMining {
 		if (filePath==null) openFileName(fName);
 		else openFilePath();
 		
-		// Get first row.
-		String line = fileInput.readLine();
-		
-		// Preocess rest of file
-		while (line != null) {
+		// Process the file line by line
+		while (fileInput.readLine(inputLine) > 0) {
 			// Process line
-			if (!processInputLine(line,rowIndex)) break;
+			if (!processInputLine(inputLine,rowIndex)) break;
 			// Increment first (row) index in 2-D data array
 			rowIndex++;
-			// get next line
-            line = fileInput.readLine();
 	    }
 		
 		// Close file
@@ -461,13 +490,10 @@ public class AssocRuleMining {
 		if (filePath==null) openFileName(fName);
 		else openFilePath();
 		
-		// get first row.
-		String line = fileInput.readLine();
 		for (int index=startRowIndex;index<endRowIndex;index++) {
-			// Process line
-			processInputLine(line,index);
-			// get next line
-            line = fileInput.readLine();
+			// Get and process line (empty at end of file)
+			fileInput.readLine(inputLine);
+			processInputLine(inputLine,index);
 	    }
 		
 		// Close file
@@ -477,32 +503,22 @@ public class AssocRuleMining {
     /* PROCESS INPUT LINE */
 	
     /**	Processes a line from the input file and places it in the
-	 <TT>dataArray</TT> structure.
+	 <TT>dataArray</TT> structure. The line is parsed from its bytes by
+	 <TT>parser</TT>, only the resulting row is allocated.
 	 @param line the line to be processed from the input file
 	 @param rowIndex the index to the current location in the
 	 <TT>dataArray</TT> structure.
 	 @rerturn true if successfull, false if empty record. */
 	
-    private boolean processInputLine(String line, int rowIndex) {
+    private boolean processInputLine(Text line, int rowIndex) {
         // If no line return false
 		if (line==null) return(false);
 		
-		// Tokenise line
-		StringTokenizer dataLine = new StringTokenizer(line);
-        int numberOfTokens = dataLine.countTokens();
-		
 		// Empty line or end of file found, return false
-		if (numberOfTokens == 0) return(false);
-		
-		// Convert input string to a sequence of short integers
-		short[] code = binConversion(dataLine,numberOfTokens);
+		if (parser.parse(line) == 0) return(false);
 		
-		// Dimension row in 2-D dataArray
-		int codeLength = code.length;
-		dataArray[rowIndex] = new short[codeLength];
-		// Assign to elements in row
-		for (int colIndex=0;colIndex<codeLength;colIndex++)
-			dataArray[rowIndex][colIndex] = code[colIndex];
+		// Dimension and assign row in 2-D dataArray
+		dataArray[rowIndex] = parser.toArray();
 		
 		// Return
 		return(true);
@@ -533,7 +549,7 @@ public class AssocRuleMining {
 	 @param itemSet the item set represented by the line
 	 @return true if OK and false otherwise. */
 	
-    protected boolean checkLineOrdering(int lineNum, short[] itemSet) {
+    protected boolean checkLineOrdering(int lineNum, int[] itemSet) {
         for (int index=0;index<itemSet.length-1;index++) {
 			if (itemSet[index] >= itemSet[index+1]) {
 				System.out.println("FILE FORMAT ERROR:\n" +
@@ -555,6 +571,7 @@ public class AssocRuleMining {
 		
 		// Loop through data array
         for(int index=0;index<dataArray.length;index++) {
+			if (dataArray[index] == null) continue;
 			int lastIndex = dataArray[index].length-1;
 			if (dataArray[index][lastIndex] > maxAttribute)
 	    		maxAttribute = dataArray[index][lastIndex];
@@ -571,8 +588,8 @@ public class AssocRuleMining {
     protected void openFileName(String nameOfFile) {
 		try {
 			// Open file
-			FileReader file = new FileReader(nameOfFile);
-			fileInput = new BufferedReader(file);
+			FileInputStream file = new FileInputStream(nameOfFile);
+			fileInput = new LineReader(file);
 	    }
 		catch(IOException ioException) {
 			System.out.println("Error Opening File");
@@ -586,8 +603,8 @@ public class AssocRuleMining {
     protected void openFilePath() {
 		try {
 			// Open file
-			FileReader file = new FileReader(filePath);
-			fileInput = new BufferedReader(file);
+			FileInputStream file = new FileInputStream(filePath);
+			fileInput = new LineReader(file);
 	    }
 		catch(IOException ioException) {
 			System.out.println("Error Opening File");
@@ -610,32 +627,6 @@ public class AssocRuleMining {
 	    }
 	}
 	
-    /* BINARY CONVERSION. */
-	
-    /** Produce an item set (array of elements) from input
-	 line.
-	 @param dataLine row from the input data file
-	 @param numberOfTokens number of items in row
-	 @return 1-D array of short integers representing attributes in input
-	 row */
-	
-    protected short[] binConversion(StringTokenizer dataLine,
-									int numberOfTokens) {
-        short number;
-		short[] newItemSet = null;
-		
-		// Load array
-		
-		for (int tokenCounter=0;tokenCounter < numberOfTokens;tokenCounter++) {
-            number = new Short(dataLine.nextToken()).shortValue();
-			newItemSet = realloc1(newItemSet,number);
-	    }
-		
-		// Return itemSet
-		
-		return(newItemSet);
-	}
-	
     /* ---------------------------------------------------------------- */
     /*                                                                  */
     /*        REORDER DATA SET ACCORDING TO ATTRIBUTE FREQUENCY         */
@@ -692,7 +683,7 @@ public class AssocRuleMining {
 		// Count singles and store in countArray;	     
         int[][] countArray = countSingles();
         
-		// Bubble sort count array on support value (second index)	
+		// Sort count array on support value (second index)	
 		orderCountArray(countArray);
 		
         // Define conversion and reconversion arrays      
@@ -737,71 +728,34 @@ public class AssocRuleMining {
 	
     /* ORDER COUNT ARRAY */
     
-    /** Bubble sorts count array produced by <TT>countSingles</TT> method
-	 so that array is ordered according to frequency of single items. 
+    /** Sorts count array produced by <TT>countSingles</TT> method
+	 so that array is ordered according to frequency of single items. The
+	 sort is stable, attributes with the same frequency keep their order.
 	 @param countArray The 2-D array returned by the <TT>countSingles</TT> 
 	 method. */
 	
     private void orderCountArray(int[][] countArray) {
-        int attribute, quantity;	
-        boolean isOrdered;
-        int index; 
-		
-        do {
-			isOrdered = true;
-            index     = 1; 
-            while (index < (countArray.length-1)) {
-                if (countArray[index][1] >= countArray[index+1][1]) index++;
-				else {
-					isOrdered=false;
-                    // Swap
-					attribute              = countArray[index][0];
-					quantity               = countArray[index][1];
-					countArray[index][0]   = countArray[index+1][0];
-					countArray[index][1]   = countArray[index+1][1];
-                    countArray[index+1][0] = attribute;
-					countArray[index+1][1] = quantity;
-					// Increment index
-					index++;  
-	            }
-			}     
-	    } while (isOrdered==false);
+		orderFirstNofCountArray(countArray,countArray.length-1);
 	}
     
     /* ORDER FIRST N ELEMENTS IN COUNT ARRAY */
 	
-    /** Bubble sorts first N elements in count array produced by
+    /** Sorts first N elements in count array produced by
 	 <TT>countSingles</TT> method so that array is ordered according to
-	 frequency of single items. <P> Used when ordering classification input
-	 data.
+	 frequency of single items (stable sort). <P> Used when ordering 
+	 classification input data.
 	 @param countArray The 2-D array returned by the <TT>countSingles</TT>
 	 method.
 	 @param endIndex the index of the Nth element. */
 	
     protected void orderFirstNofCountArray(int[][] countArray, int endIndex) {
-        int attribute, quantity;
-        boolean isOrdered;
-        int index;
-		
-        do {
-			isOrdered = true;
-            index     = 1;
-            while (index < endIndex) {
-                if (countArray[index][1] >= countArray[index+1][1]) index++;
-				else {
-					isOrdered=false;
-                    // Swap
-					attribute              = countArray[index][0];
-					quantity               = countArray[index][1];
-					countArray[index][0]   = countArray[index+1][0];
-					countArray[index][1]   = countArray[index+1][1];
-                    countArray[index+1][0] = attribute;
-					countArray[index+1][1] = quantity;
-					// Increment index
-					index++;
-	            }
+		if (endIndex < 1) return;
+		Arrays.sort(countArray,1,endIndex+1,new Comparator<int[]>() {
+			public int compare(int[] count1, int[] count2) {
+				if (count1[1] == count2[1]) return(0);
+				return(count1[1] > count2[1] ? -1 : 1);
 			}
-	    } while (isOrdered==false);
+	    });
 	}
 	
     /* DEFINE CONVERSION ARRAYS: */
@@ -814,15 +768,16 @@ public class AssocRuleMining {
 		
 		// Dimension arrays
 		
-		conversionArray   = new int[numCols+1][2];
-        reconversionArray = new short[numCols+1];
+		conversionArray    = new int[numCols+1];
+		conversionSupports = new int[numCols+1];
+        reconversionArray  = new int[numCols+1];
 		
 		// Assign values
 		
 		for(int index=1;index<countArray.length;index++) {
-            conversionArray[countArray[index][0]][0] = index;
-            conversionArray[countArray[index][0]][1] = countArray[index][1];
-			reconversionArray[index] = (short) countArray[index][0];
+            conversionArray[countArray[index][0]]    = index;
+            conversionSupports[countArray[index][0]] = countArray[index][1];
+			reconversionArray[index] = countArray[index][0];
 	    }
 		
 		// Diagnostic ouput if desired
@@ -841,18 +796,18 @@ public class AssocRuleMining {
 	 3) Reorder this itemSet and return into the data array. */
 	
     public void recastInputData() {
-        short[] itemSet;
+        int[] itemSet;
 		int attribute;
 		
 		// Step through data array using loop construct
 		
         for(int rowIndex=0;rowIndex<dataArray.length;rowIndex++) {
-			itemSet = new short[dataArray[rowIndex].length];
+			itemSet = new int[dataArray[rowIndex].length];
 			// For each element in the itemSet replace with attribute number
 			// from conversion array
 			for(int colIndex=0;colIndex<dataArray[rowIndex].length;colIndex++) {
 				attribute = dataArray[rowIndex][colIndex];
-				itemSet[colIndex] = (short) conversionArray[attribute][0];
+				itemSet[colIndex] = conversionArray[attribute];
 			}
 			// Sort itemSet and return to data array
 			sortItemSet(itemSet);
@@ -872,7 +827,7 @@ public class AssocRuleMining {
 	 3) Assign new itemSet back into to data array */
 	
     public void recastInputDataAndPruneUnsupportedAtts() {
-        short[] itemSet;
+        int[] itemSet;
 		int attribute;
 		
 		// Step through data array using loop construct
@@ -886,9 +841,9 @@ public class AssocRuleMining {
 				for(int colIndex=0;colIndex<dataArray[rowIndex].length;colIndex++) {
 					attribute = dataArray[rowIndex][colIndex];
 					// Check support
-					if (conversionArray[attribute][1] >= minSupport) {
+					if (conversionSupports[attribute] >= minSupport) {
 						itemSet = reallocInsert(itemSet,
-												(short) conversionArray[attribute][0]);
+												conversionArray[attribute]);
 					}
 				}
 				// Return new item set to data array
@@ -914,7 +869,7 @@ public class AssocRuleMining {
 		// supported element found
 		
 		for (int index=1;index < conversionArray.length;index++) {
-			if (conversionArray[index][1] >= minSupport) counter++;
+			if (conversionSupports[index] >= minSupport) counter++;
 	    }
 		
 		// Return
@@ -934,7 +889,7 @@ public class AssocRuleMining {
         System.out.println("Recast input data, new num rows = " + numRows);
 		
 		// Dimension and populate training set.
-		short[][] trainingSet = new short[numRows][];
+		int[][] trainingSet = new int[numRows][];
 		for (int index=0;index<numRows;index++)
 			trainingSet[index] = dataArray[index];
 		
@@ -950,7 +905,7 @@ public class AssocRuleMining {
 	 @param itemSet the fgiven itemset.
 	 @return the reconverted itemset. */	
     
-    protected short[] reconvertItemSet(short[] itemSet) {
+    protected int[] reconvertItemSet(int[] itemSet) {
         // If no conversion return orginal item set
 		if (reconversionArray==null) return(itemSet); 
 		
@@ -958,7 +913,7 @@ public class AssocRuleMining {
 		if (itemSet==null) return(null);
 		
 		// Define new item set
-		short[] newItemSet = new short[itemSet.length];
+		int[] newItemSet = new int[itemSet.length];
 		
 		// Copy
 		for(int index=0;index<newItemSet.length;index++) {
@@ -973,7 +928,7 @@ public class AssocRuleMining {
 	 @param item the given item (attribute).
 	 @return the reconvered item. */
     
-    protected short reconvertItem(short item) {
+    protected int reconvertItem(int item) {
         // If no conversion return orginal item
 		if (reconversionArray==null) return(item); 
 		
@@ -1007,8 +962,8 @@ public class AssocRuleMining {
 	 @param consequent the consequent (RHS) of the rule.
 	 @param confidenceForRule the associated confidence value.  */
 	
-    protected void insertRuleintoRulelist(short[] antecedent,
-										  short[] consequent, double confidenceForRule) {
+    protected void insertRuleintoRulelist(int[] antecedent,
+										  int[] consequent, double confidenceForRule) {
 		
 		// Create new node
 		RuleNode newNode = new RuleNode(antecedent,consequent,
@@ -1058,12 +1013,12 @@ public class AssocRuleMining {
 	 @param newElement the new element/attribute to be inserted
 	 @return the combined item set */
 	
-    protected short[] reallocInsert(short[] oldItemSet, short newElement) {
+    protected int[] reallocInsert(int[] oldItemSet, int newElement) {
 		
 		// No old item set
 		
 		if (oldItemSet == null) {
-			short[] newItemSet = {newElement};
+			int[] newItemSet = {newElement};
 			return(newItemSet);
 	    }
 		
@@ -1071,7 +1026,7 @@ public class AssocRuleMining {
 		// item set
 		
 		int oldItemSetLength = oldItemSet.length;
-		short[] newItemSet = new short[oldItemSetLength+1];
+		int[] newItemSet = new int[oldItemSetLength+1];
 		
 		// Loop
 		
@@ -1104,12 +1059,12 @@ public class AssocRuleMining {
 	 @param newElement the new element/attribute to be appended
 	 @return the combined item set */
 	
-    protected short[] realloc1(short[] oldItemSet, short newElement) {
+    protected int[] realloc1(int[] oldItemSet, int newElement) {
 		
 		// No old item set
 		
 		if (oldItemSet == null) {
-			short[] newItemSet = {newElement};
+			int[] newItemSet = {newElement};
 			return(newItemSet);
 	    }
 		
@@ -1117,7 +1072,7 @@ public class AssocRuleMining {
 		// item set
 		
 		int oldItemSetLength = oldItemSet.length;
-		short[] newItemSet = new short[oldItemSetLength+1];
+		int[] newItemSet = new int[oldItemSetLength+1];
 		
 		// Loop
 		
@@ -1139,19 +1094,19 @@ public class AssocRuleMining {
 	 @param newElement the new element/attribute to be appended
 	 @return the combined item set */
 	
-    protected short[] realloc2(short[] oldItemSet, short newElement) {
+    protected int[] realloc2(int[] oldItemSet, int newElement) {
 		
 		// No old array
 		
 		if (oldItemSet == null) {
-			short[] newItemSet = {newElement};
+			int[] newItemSet = {newElement};
 			return(newItemSet);
 	    }
 		
 		// Otherwise create new array with length one greater than old array
 		
 		int oldItemSetLength = oldItemSet.length;
-		short[] newItemSet = new short[oldItemSetLength+1];
+		int[] newItemSet = new int[oldItemSetLength+1];
 		
 		// Loop
 		
@@ -1177,10 +1132,10 @@ public class AssocRuleMining {
 	 @param n the index of the element to be removed (first index is 0). 
 	 @return Revised item set with nth element removed. */
     
-    protected short[] removeElementN(short [] oldItemSet, int n) {
+    protected int[] removeElementN(int [] oldItemSet, int n) {
         if (oldItemSet.length <= n) return(oldItemSet);
 		else {
-			short[] newItemSet = new short[oldItemSet.length-1];
+			int[] newItemSet = new int[oldItemSet.length-1];
 			for (int index=0;index<n;index++) newItemSet[index] = 
 				oldItemSet[index];
 			for (int index=n+1;index<oldItemSet.length;index++) 
@@ -1202,14 +1157,14 @@ public class AssocRuleMining {
 	 @param itemSet2 the second given item set.
 	 @return complement if <TT>itemSet1</TT> in <TT>itemSet2</TT>. */
     
-    protected short[] complement(short[] itemSet1, short[] itemSet2) {
+    protected int[] complement(int[] itemSet1, int[] itemSet2) {
         int lengthOfComp = itemSet2.length-itemSet1.length;
 		
 		// Return null if no complement
 		if (lengthOfComp<1) return(null);
 		
 		// Otherwsise define combination array and determine complement
-		short[] complement  = new short[lengthOfComp];
+		int[] complement  = new int[lengthOfComp];
 		int complementIndex = 0;
 		for(int index=0;index<itemSet2.length;index++) {
 			// Add to combination if not in first itemset
@@ -1234,27 +1189,8 @@ public class AssocRuleMining {
     /** Sorts an unordered item set.
 	 @param itemSet the given item set. */
 	
-    protected void sortItemSet(short[] itemSet) {
-        short temp;
-        boolean isOrdered;
-        int index;
-		
-        do {
-			isOrdered = true;
-            index     = 0;
-            while (index < (itemSet.length-1)) {
-                if (itemSet[index] <= itemSet[index+1]) index++;
-				else {
-					isOrdered=false;
-                    // Swap
-					temp = itemSet[index];
-					itemSet[index] = itemSet[index+1];
-                    itemSet[index+1] = temp;
-					// Increment index
-					index++;
-	            }
-			}
-	    } while (isOrdered==false);
+    protected void sortItemSet(int[] itemSet) {
+        Arrays.sort(itemSet);
 	}  
 	
     /* ----------------------------------------------------- */
@@ -1272,7 +1208,7 @@ public class AssocRuleMining {
 	 @return true if first argument is not a member of itemSet, and false 
 	 otherwise */
     
-    protected boolean notMemberOf(short number, short[] itemSet) {
+    protected boolean notMemberOf(int number, int[] itemSet) {
         
 		// Loop through itemSet
 		
@@ -1302,10 +1238,10 @@ public class AssocRuleMining {
 	 @return array of arrays representing all possible combinations (may be null
 	 if no combinations). */
 	
-    protected short[][] combinations(short[] inputSet) {
+    protected int[][] combinations(int[] inputSet) {
 		if (inputSet == null) return(null);
 		else {
-			short[][] outputSet = new short[getCombinations(inputSet)][];
+			int[][] outputSet = new int[getCombinations(inputSet)][];
 			combinations(inputSet,0,null,outputSet,0);
 			return(outputSet);
 	    }
@@ -1323,9 +1259,9 @@ public class AssocRuleMining {
 	 @param outputIndex the current location in the output set.
 	 @return revised output index. */
 	
-    private int combinations(short[] inputSet, int inputIndex,
-							 short[] sofar, short[][] outputSet, int outputIndex) {
-    	short[] tempSet;
+    private int combinations(int[] inputSet, int inputIndex,
+							 int[] sofar, int[][] outputSet, int outputIndex) {
+    	int[] tempSet;
 		int index=inputIndex;
 		
     	// Loop through input array
@@ -1349,7 +1285,7 @@ public class AssocRuleMining {
 	 @param set the given item set.
 	 @return number of possible combinations. */
     
-    private int getCombinations(short[] set) {
+    private int getCombinations(int[] set) {
     	int counter=0, numComb;	
 		
 		numComb = (int) Math.pow(2.0,set.length)-1;
@@ -1371,13 +1307,13 @@ public class AssocRuleMining {
 	 @param itemSet the given item set.
 	 @return copy of given item set. */
     
-    protected short[] copyItemSet(short[] itemSet) {
+    protected int[] copyItemSet(int[] itemSet) {
 		
 		// Check whether there is a itemSet to copy
 		if (itemSet == null) return(null);
 		
 		// Do copy and return
-		short[] newItemSet = new short[itemSet.length];
+		int[] newItemSet = new int[itemSet.length];
 		for(int index=0;index<itemSet.length;index++) {
 			newItemSet[index] = itemSet[index];
 	    }
@@ -1414,11 +1350,11 @@ public class AssocRuleMining {
 	    }
 	}
 	
-    /** Outputs the given array of array of short integers. <P> Used for
+    /** Outputs the given array of array of integers. <P> Used for
 	 diagnostic purposes.
 	 @param dataSet the five array of arrays. */
 	
-    protected void outputDataArray(short[][] dataSet) {
+    protected void outputDataArray(int[][] dataSet) {
         if (dataSet==null) {
 			System.out.println("null");
 			return;
@@ -1437,14 +1373,14 @@ public class AssocRuleMining {
     /** Outputs a given item set.
 	 @param itemSet the given item set. */
 	
-    protected void outputItemSet(short[] itemSet) {
+    protected void outputItemSet(int[] itemSet) {
 		// Check for empty set
 		if (itemSet == null) System.out.print(" null ");
 		// Process
 		else {
 			// Reconvert where input dataset has been reordered and possible 
 			// pruned.
-			short[] tempItemSet = reconvertItemSet(itemSet);
+			int[] tempItemSet = reconvertItemSet(itemSet);
 			// Loop through item set elements
             int counter = 0;
 			for (int index=0;index<tempItemSet.length;index++) {
@@ -1499,8 +1435,8 @@ public class AssocRuleMining {
         // Conversion array
         System.out.println("Conversion Array = ");
 		for(int index=1;index<conversionArray.length;index++) {
-			System.out.println("(" + index + ") " + conversionArray[index][0] +
-							   " = " + conversionArray[index][1]);
+			System.out.println("(" + index + ") " + conversionArray[index] +
+							   " = " + conversionSupports[index]);
 	    }
 		
         // Reconversion array
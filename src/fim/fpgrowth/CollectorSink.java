@@ -0,0 +1,75 @@
+/********************************************************************************
+ File: CollectorSink.java
+ Description: 
+	Emits the frequent itemsets received as a FrequentSetSink to an 
+	OutputCollector, in the format of TotalSupportTree.emitFrequentSets()
+	(the items separated by spaces as key, the support as value), writing
+	them into the same Text and DoubleWritable each time. 
+*********************************************************************************/
+
+package fim.fpgrowth; 
+
+import java.io.IOException;
+import java.util.Arrays;
+import org.apache.hadoop.mapred.OutputCollector;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.io.DoubleWritable;
+
+
+public class CollectorSink implements FrequentSetSink
+{
+	private final OutputCollector<Text,DoubleWritable> output; 
+	private final Text itemset = new Text(); 
+	private final DoubleWritable support = new DoubleWritable(); 
+	private byte[] bytes = new byte[64]; 
+
+	public CollectorSink(OutputCollector<Text,DoubleWritable> output)
+	{
+		this.output = output; 
+	}
+
+	public void addFrequentSet(int[] items, int length, int support) throws IOException
+	{
+		int size = 0; 
+		for (int i = 0; i < length; i++)
+		{
+			// At most a separator and 10 digits per item
+			if (bytes.length < size + 11)
+			{
+				bytes = Arrays.copyOf(bytes, 2 * bytes.length); 
+			}
+			if (i > 0)
+			{
+				bytes[size++] = ' '; 
+			}
+			size = appendItem(items[i], size); 
+		}
+		itemset.set(bytes, 0, size); 
+		this.support.set(support); 
+		output.collect(itemset, this.support); 
+	}
+
+	/*
+	 Method: appendItem
+	 Description: 
+		Writes the decimal digits of an item (non negative) at bytes[size]. 
+	 Returns: 
+		the new size. 
+	 */
+	private int appendItem(int item, int size)
+	{
+		int end = size; 
+		int rest = item; 
+		do
+		{
+			end++; 
+			rest /= 10; 
+		} while (rest != 0); 
+		for (int pos = end - 1; pos >= size; pos--)
+		{
+			bytes[pos] = (byte) ('0' + item % 10); 
+			item /= 10; 
+		}
+		return end; 
+	}
+}
@@ -29,18 +29,36 @@ public class FPgrowth
 	}
 	
 
-    	public static void mineFrequentItemsets(Iterator<Text> transactions, int numTransactions, float minFreqPercent, OutputCollector<Text,DoubleWritable> output)
+    	public static void mineFrequentItemsets(Iterator<Text> transactions, int numTransactions, float minFreqPercent, OutputCollector<Text,DoubleWritable> output) throws IOException
+	{
+		mineFrequentItemsets(transactions, numTransactions, minFreqPercent, output, 1);
+	}
+
+	/*
+	 Method: mineFrequentItemsets
+	 Description: 
+		Same as above, but mines the FP-tree with the given number of threads, 
+		one fork-join task per item of the header table. 
+	 */
+    	public static void mineFrequentItemsets(Iterator<Text> transactions, int numTransactions, float minFreqPercent, OutputCollector<Text,DoubleWritable> output, int miningThreads) throws IOException
+	{
+		FPtree newFPtree = new FPtree(transactions, numTransactions, minFreqPercent);
+		newFPtree.inputDataSetFromIterator();
+		mineFrequentItemsets(newFPtree, output, miningThreads); 
+	}
+
+	/*
+	 Method: mineFrequentItemsets
+	 Description: 
+		Mines the transactions loaded in the given FP-tree object and emits 
+		the frequent itemsets to the OutputCollector through a CollectorSink. 
+	 */
+	private static void mineFrequentItemsets(FPtree newFPtree, OutputCollector<Text,DoubleWritable> output, int miningThreads) throws IOException
 	{
 	  	long start_time, end_time;
 		double total_time; 
-		FPtree newFPtree = new FPtree(transactions, numTransactions, minFreqPercent);
 
 		start_time = System.currentTimeMillis(); 
-		//newFPtree.inputDataSet();
-		newFPtree.inputDataSetFromIterator();
-		end_time = System.currentTimeMillis();
-		total_time = newFPtree.twoDecPlaces((end_time - start_time) / 1000.0); 
-		//System.out.println("done (" + total_time + " seconds)");
 		
 		// Reorder and prune input data according to frequency of single attributes	
 		System.out.print("pruning items with low support..."); 
@@ -64,28 +82,36 @@ public class FPgrowth
 		//newFPtree.outputFPtree();
 		//newFPtree.outputItemPrefixSubtree();
 		
+		if(output == null)
+		{
+		  System.out.println("ERROR: OutputCollector cannot be null in distributed mode"); 
+		  System.exit(1); 
+		}
+		mineFPtree(newFPtree, new CollectorSink(output), miningThreads); 
+	}
+
+	/*
+	 Method: mineFPtree
+	 Description: 
+		Mines an FP-tree that is already built, e.g. one built in a single pass
+		with FPtree.addToFPtree() from items ordered by a global ranking, and 
+		passes the frequent itemsets to the given sink as they are found, 
+		without storing them in the T-tree, as no rules are generated from them. 
+	 Throws: 
+		IOException if the sink failed. 
+	 */
+	public static void mineFPtree(FPtree newFPtree, FrequentSetSink sink, int miningThreads) throws IOException
+	{
+	  	long start_time, end_time;
+		double total_time; 
 		
 		// Mine FP-tree
 		System.out.print("mining FP-tree..."); 
 		start_time = System.currentTimeMillis(); 
-		newFPtree.startMining();
+		newFPtree.startMining(miningThreads, sink);
 		end_time = System.currentTimeMillis();
 		total_time = newFPtree.twoDecPlaces((end_time - start_time) / 1000.0); 
 		System.out.println("done (" + total_time + " seconds)");
-		
-		//newFPtree.outputFrequentSets(); 
-		//newFPtree.outputStorage(); 
-		//newFPtree.outputNumFreqSets(); 
-		//newFPtree.outputTtree(); // Frequent sets are stored in this structure
-		//newFPtree.outputRules();	
-		
-		if(output == null)
-		{
-		  System.out.println("ERROR: OutputCollector cannot be null in distributed mode"); 
-		  System.exit(1); 
-		}
-			//newFPtree.outputFrequentSets();
-		newFPtree.emitFrequentSets(output); 
 	}
 
 	/*
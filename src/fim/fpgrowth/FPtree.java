@@ -24,6 +24,8 @@ package fim.fpgrowth;
 
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import org.apache.hadoop.io.Text;
 
@@ -35,61 +37,277 @@ public class FPtree extends TotalSupportTree {
     
     /* ------ FIELDS ------ */
     
-    /** FP-tree node structure comprising a <TT>FPgrowthItemPrefixSubtreeNode</TT> in 
-	 which to store counts and a reference to a child branch. */
-    
-    protected class FPtreeNode {
-        /** The FP tree node. */
-        private FPgrowthItemPrefixSubtreeNode node = null;
-		/** The reference to the child branch (levels in FP-tree branches are
-		 stored as a arrays of <TT>FPtreeNode</TT> structures. */ 
-        private FPtreeNode[] childRefs = null;
-        
-		/** Default constructor. */
-		
-		protected FPtreeNode() {
-	    }  
-	    
-		/** Single argument constructor. 
-		 @param newNode the reference to a new node to be included in the
-		 FP-tree.*/
-		
-		protected FPtreeNode(FPgrowthItemPrefixSubtreeNode newNode) {
-			node = newNode;
-	    }
-	}
-    
-    /** Prefix subtree structure. <P> A set enumeration tree in which to store
-	 itemsets together with support values. */
-    
-    private class FPgrowthItemPrefixSubtreeNode {
-        /** The attribute identifier. */
-        private short itemName;
-		/** The support count. */
-		private int itemCount;
-		/** The backward link to the parent node in FP tree. */
-		private FPgrowthItemPrefixSubtreeNode parentRef = null;
+    /** FP-tree stored as a set of parallel arrays, one element per node, 
+	 instead of one <TT>FPtreeNode</TT> plus one prefix subtree node object per
+	 node. <P> Node 0 is the root. Links between nodes are indexes into the 
+	 arrays, <TT>NULL_REF</TT> standing for "no link". The children of a node
+	 are kept in a linked list (through <TT>siblingRef</TT>) ordered 
+	 lexicographically on the item, which replaces the child reference array 
+	 that used to be reallocated on every insertion. Arrays grow by doubling. 
+	 <P> Once finding a child has to go through more than 
+	 <TT>MAX_LISTED_CHILDREN</TT> siblings, the children of the node are also
+	 indexed in an open-addressing hash table keyed on the parent and the 
+	 item, shared by all such "wide" nodes of the tree, and new children of 
+	 the node are added at the head of its list (which is then unordered). 
+	 <P> The nodes hold the ranks of the items, which are at most 
+	 <TT>numOneItemSets</TT>: the ranks are stored as chars (unsigned 16 bit)
+	 when they fit, as for most samples, and as ints otherwise. <P> Trees 
+	 with few enough items also keep the FP-growth* count matrix: the support
+	 of every pair of items, accumulated as itemsets are added, from which the
+	 counts of the items in the conditional pattern base of any item of the 
+	 tree can be read without visiting the tree. */
+    
+    protected class FPtreeNodes {
+        /** The attribute identifier of each node, if all fit in a char. */
+        private char[] narrowItemName;
+        /** The attribute identifier of each node, otherwise. */
+        private int[] wideItemName;
+		/** The support count of each node. */
+		private int[] itemCount;
+		/** The backward link to the parent node. */
+		private int[] parentRef;
 		/** The forward link to the next node in a linked list of nodes with
 		 same attribute identifier starting with an element in the header table
 		 (array). */
-		private FPgrowthItemPrefixSubtreeNode nodeLink = null;
-		
-		/** Default constructor. */
-		
-		private FPgrowthItemPrefixSubtreeNode() {
-	    }
-		
-		/** Three argument constructor. 
-		 @param name the itemset identifier. 
-		 @param support the support value for the itemset.
-		 @param backRef the backward link to the parent node. */
-		
-		private FPgrowthItemPrefixSubtreeNode(short name, int support, 
-											  FPgrowthItemPrefixSubtreeNode backRef) {
-			itemName = name;
-			itemCount = support;
-			parentRef = backRef;
-	    }
+		private int[] nodeLink;
+		/** The link to the first child of each node. */
+		private int[] childRef;
+		/** The link to the next sibling of each node. */
+		private int[] siblingRef;
+		/** The number of nodes in the tree (including the root). */
+		private int size = 0;
+		/** One bit per node, set for the nodes whose children are in the 
+		 child table. */
+		private long[] wideNodes;
+		/** Keys of the child table: the parent node in the upper 32 bits and
+		 the attribute identifier (never 0) in the lower ones, 0 if empty. */
+		private long[] childKeys = null;
+		/** The children, in the slots of their keys. */
+		private int[] childNodes = null;
+		/** The number of children in the child table. */
+		private int numIndexedChildren = 0;
+		/** The count matrix, null if not kept: the lower triangle of the 
+		 matrix of the supports of the pairs of items, indexed by the 
+		 positions of the items in the header table (see 
+		 <TT>pairIndex</TT>). */
+		private int[] pairCounts = null;
+		/** Whether the tree is a single path, no node having more than one
+		 child. */
+		private boolean singlePath = true;
+		
+		/** One argument constructor, creates the root node. 
+		 @param capacity the initial number of nodes to allocate space for. */
+		
+		protected FPtreeNodes(int capacity) {
+			capacity = Math.max(capacity,16);
+			if (numOneItemSets <= Character.MAX_VALUE) 
+				narrowItemName = new char[capacity];
+			else wideItemName = new int[capacity];
+			itemCount  = new int[capacity];
+			parentRef  = new int[capacity];
+			nodeLink   = new int[capacity];
+			childRef   = new int[capacity];
+			siblingRef = new int[capacity];
+			wideNodes  = new long[(capacity+63)/64];
+			addNode(0,0,NULL_REF);
+		}
+		
+		/** Appends a new node with no children and no links. 
+		 @param name the attribute identifier. 
+		 @param support the support value for the node.
+		 @param parent the index of the parent node. 
+		 @return the index of the new node. */
+		
+		private int addNode(int name, int support, int parent) {
+			if (size == itemCount.length) grow();
+			if (narrowItemName != null) narrowItemName[size] = (char) name;
+			else wideItemName[size] = name;
+			itemCount[size]  = support;
+			parentRef[size]  = parent;
+			nodeLink[size]   = NULL_REF;
+			childRef[size]   = NULL_REF;
+			siblingRef[size] = NULL_REF;
+			return(size++);
+		}
+		
+		/** Doubles the capacity of the node arrays. */
+		
+		private void grow() {
+			int newCapacity = itemCount.length*2;
+			if (narrowItemName != null) 
+				narrowItemName = Arrays.copyOf(narrowItemName,newCapacity);
+			else wideItemName = Arrays.copyOf(wideItemName,newCapacity);
+			itemCount  = Arrays.copyOf(itemCount,newCapacity);
+			parentRef  = Arrays.copyOf(parentRef,newCapacity);
+			nodeLink   = Arrays.copyOf(nodeLink,newCapacity);
+			childRef   = Arrays.copyOf(childRef,newCapacity);
+			siblingRef = Arrays.copyOf(siblingRef,newCapacity);
+			wideNodes  = Arrays.copyOf(wideNodes,(newCapacity+63)/64);
+		}
+		
+		/** Finds the child of a node with the given attribute identifier. 
+		 Indexes the children of the node if they are too many to be scanned.
+		 @param parent the index of the node.
+		 @param name the attribute identifier.
+		 @return the index of the child, <TT>NULL_REF</TT> if none. */
+		
+		private int getChild(int parent, int name) {
+			if (isWide(parent)) return(getIndexedChild(parent,name));
+			
+			// Child refs ordered lexicographically so stop when passed
+			// point where item should be
+			int child = childRef[parent];
+			int scanned = 0;
+			while (child != NULL_REF && getItemName(child) < name) {
+				child = siblingRef[child];
+				scanned++;
+			}
+			if (scanned > MAX_LISTED_CHILDREN) indexChildren(parent);
+			if (child != NULL_REF && getItemName(child) == name) return(child);
+			return(NULL_REF);
+		}
+		
+		/** Appends a new node as a child of the given node, which must not
+		 have a child with the same attribute identifier. 
+		 @param parent the index of the parent node. 
+		 @param name the attribute identifier. 
+		 @param support the support value for the node.
+		 @return the index of the new node. */
+		
+		private int addChild(int parent, int name, int support) {
+			if (childRef[parent] != NULL_REF) singlePath = false;
+			int newNode = addNode(name,support,parent);
+			if (isWide(parent)) {
+				siblingRef[newNode] = childRef[parent];
+				childRef[parent] = newNode;
+				indexChild(parent,newNode);
+				return(newNode);
+			}
+			
+			// Insert in the ordered list of children
+			int prevChild = NULL_REF;
+			int child = childRef[parent];
+			while (child != NULL_REF && getItemName(child) < name) {
+				prevChild = child;
+				child = siblingRef[child];
+			}
+			siblingRef[newNode] = child;
+			if (prevChild == NULL_REF) childRef[parent] = newNode;
+			else siblingRef[prevChild] = newNode;
+			return(newNode);
+		}
+		
+		/** Whether the children of a node are in the child table. */
+		
+		private boolean isWide(int ref) {
+			return((wideNodes[ref >>> 6] & (1L << ref)) != 0);
+		}
+		
+		/** Moves a node to the child table, adding all its children. 
+		 @param parent the index of the node. */
+		
+		private void indexChildren(int parent) {
+			wideNodes[parent >>> 6] |= 1L << parent;
+			for (int child=childRef[parent];child!=NULL_REF;
+				 child=siblingRef[child]) indexChild(parent,child);
+		}
+		
+		/** Adds a child to the child table, growing it if more than half 
+		 full. 
+		 @param parent the index of the parent node. 
+		 @param child the index of the child. */
+		
+		private void indexChild(int parent, int child) {
+			if (childKeys == null) {
+				childKeys  = new long[64];
+				childNodes = new int[64];
+		    }
+			else if (2*(numIndexedChildren+1) > childKeys.length) {
+				long[] oldKeys  = childKeys;
+				int[] oldNodes = childNodes;
+				childKeys  = new long[oldKeys.length*2];
+				childNodes = new int[oldKeys.length*2];
+				for (int slot=0;slot<oldKeys.length;slot++) {
+					if (oldKeys[slot] != 0) 
+						putIndexedChild(oldKeys[slot],oldNodes[slot]);
+			    }
+		    }
+			putIndexedChild(childKey(parent,getItemName(child)),child);
+			numIndexedChildren++;
+		}
+		
+		/** Stores a child in the first free slot from the slot of its key 
+		 (linear probing). */
+		
+		private void putIndexedChild(long key, int child) {
+			int mask = childKeys.length-1;
+			int slot = childSlot(key,mask);
+			while (childKeys[slot] != 0) slot = (slot+1) & mask;
+			childKeys[slot]  = key;
+			childNodes[slot] = child;
+		}
+		
+		/** Looks up a child in the child table. 
+		 @return the index of the child, <TT>NULL_REF</TT> if none. */
+		
+		private int getIndexedChild(int parent, int name) {
+			long key = childKey(parent,name);
+			int mask = childKeys.length-1;
+			int slot = childSlot(key,mask);
+			while (childKeys[slot] != 0) {
+				if (childKeys[slot] == key) return(childNodes[slot]);
+				slot = (slot+1) & mask;
+		    }
+			return(NULL_REF);
+		}
+		
+		private long childKey(int parent, int name) {
+			return(((long) parent << 32) | (name & 0xFFFFFFFFL));
+		}
+		
+		/** Fibonacci hashing of a key to a slot of the child table. */
+		
+		private int childSlot(long key, int mask) {
+			return((int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask);
+		}
+		
+		/** Allocates the count matrix if it has no more than 
+		 <TT>MAX_PAIR_COUNTS</TT> elements. Must be called before any itemset
+		 is added to the tree.
+		 @param numPositions the number of items in the header table. */
+		
+		private void allocatePairCounts(int numPositions) {
+			long cells = (long) numPositions*(numPositions-1)/2;
+			if (cells > 0 && cells <= MAX_PAIR_COUNTS) 
+				pairCounts = new int[(int) cells];
+		}
+		
+		/** Adds the support of an itemset to the count matrix, for every 
+		 pair of its items. 
+		 @param itemSet the itemset, ordered by position.
+		 @param length the number of items of the itemset.
+		 @param support the support value of the itemset.
+		 @param headerRef the header table of the tree. */
+		
+		private void countPairs(int[] itemSet, int length, int support,
+								FPgrowthHeaderTable[] headerRef) {
+			for (int place=1;place<length;place++) {
+				int row = pairIndex(headerRef[itemSet[place]].position,1);
+				for (int index=0;index<place;index++) {
+					int cell = row+headerRef[itemSet[index]].position-1;
+					pairCounts[cell] = pairCounts[cell]+support;
+			    }
+		    }
+		}
+		
+		/** Gets the attribute identifier of a node.
+		 @param ref the index of the node.
+		 @return the attribute identifier. */
+		
+		private int getItemName(int ref) {
+			if (narrowItemName != null) return(narrowItemName[ref]);
+			return(wideItemName[ref]);
+		}
 	}
     
     /** Header table. <P> Array of these structures used to link into FP-tree.
@@ -100,84 +318,135 @@ public class FPtree extends TotalSupportTree {
     
     protected class FPgrowthHeaderTable {
         /** The 1-itemset (attribute) identifier. */
-		protected short itemName;
-		/** The forward link to the next node in the link list of nodes. */
-        protected FPgrowthItemPrefixSubtreeNode nodeLink = null;
+		protected int itemName;
+		/** The forward link (node index) to the first node in the link list 
+		 of nodes. */
+        protected int nodeLink = NULL_REF;
+		/** The position of the item among the items of the header table (the
+		 item itself in the global header table), from 1. */
+		protected int position;
         
 		// Constructors
 		
-		protected FPgrowthHeaderTable (short columnNum) {
+		protected FPgrowthHeaderTable (int columnNum) {
 			itemName = columnNum;
+			position = columnNum;
 	    }  
 	}
 	
-    /** Structure in which to store ancestor itemSets, i.e. nodes in an FP-tree
-	 that preceed the nodes identified by following a trail of links from a
-	 particular item in the header table. */
-    
-    private class FPgrowthSupportedSets {
-        /** The itemSet label. */
-        private short[] itemSet = null;
-		/** The associated support value for the given itemset. */
-        private int support;
-		/** The reference to the next node in a linked list. */
-		private FPgrowthSupportedSets nodeLink = null;
+    /** Working state of the mining of one header table item: the counts and
+	 path buffers used to build the conditional FP-trees, and a buffer of the
+	 frequent sets found, which are added to the T-tree once the item has 
+	 been mined. One of these is used per mining task so that different 
+	 header table items can be mined concurrently. */
+    
+    private class FPgrowthMiningBuffer {
+        /** The support of each attribute in the current conditional pattern 
+		 base, all 0 between two uses. */
+        private int[] counts = new int[numOneItemSets+1];
+		/** The supported items of the current ancestor path. */
+        private int[] path = new int[16];
+		/** The supports of the nodes of the current single path tree. */
+        private int[] pathCounts = new int[16];
+		/** The frequent sets found so far. */
+        private int[][] itemSets = new int[16][];
+		/** The associated support values. */
+        private int[] supports = new int[16];
+		/** Number of frequent sets in the buffer. */
+        private int size = 0;
+		/** Number of support value increments made while mining. */
+        private long numUpdates = 0l;
         
-		/** Three argument constructor.
-		 @param newitemSet the given itemSet label.
-		 @param newSupport the associated support value for the given itemset. 
-		 @param newNodeLink the reference to the next node in a linked list. */
-		
-		private FPgrowthSupportedSets(short[] newitemSet, int newSupport, 
-									  FPgrowthSupportedSets newNodeLink) {
-			itemSet = newitemSet;
-            support = newSupport;
-			nodeLink = newNodeLink;
-	    } 
-	} 
-    
-    /** Structure in which to store counts. */
+		/** Appends a frequent set to the buffer.
+		 @param itemSet the frequent set.
+		 @param support the associated support value. */
+		
+		private void addItemSet(int[] itemSet, int support) {
+			if (sink != null && size == MAX_BUFFERED_SETS) outputBuffer(this);
+			if (size == itemSets.length) {
+				itemSets = Arrays.copyOf(itemSets,size*2);
+				supports = Arrays.copyOf(supports,size*2);
+			}
+			itemSets[size] = itemSet;
+			supports[size] = support;
+			size++;
+	    }
+	    
+		/** Empties the buffer. */
+		
+		private void clear() {
+			Arrays.fill(itemSets,0,size,null);
+			size = 0;
+			numUpdates = 0l;
+	    }
+	}
+	
+    /** Fork-join task mining the conditional FP-trees of a single item in the
+	 (global) header table. */
     
-    private class FPgrowthColumnCounts {
-        /** The column/attribute ID number. */
-        private short columnNum;
-		/** The associated support value. */
-        private int support=0;
+    private class FPgrowthMiningTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        /** The index of the item in the header table. */
+        private int index;
         
 		/** One argument constructor.
-		 @param column the column/attribute ID number. */
+		 @param headerIndex the index of the item in the header table. */
 		
-		private FPgrowthColumnCounts(int column) {
-			columnNum = (short) column;
-	    }  
-        
-		/** Two argument constructor.
-		 @param column the column/attribute ID number. 
-		 @param sup the associatec support value. */
+		private FPgrowthMiningTask(int headerIndex) {
+			index = headerIndex;
+	    }
+	    
+		/** Mines the item and adds the frequent sets found to the T-tree. */
 		
-		private FPgrowthColumnCounts(int column, int sup) {
-			columnNum = (short) column;
-			support = sup;
-	    }  
-	}   
+		protected void compute() {
+			FPgrowthMiningBuffer buffer = new FPgrowthMiningBuffer();
+			startMining(fpTree,headerTable,index,null,buffer);
+			outputBuffer(buffer);
+	    }
+	}
 	
+    // Constants
+    
+    /** Index of the root node in an <TT>FPtreeNodes</TT> structure. */
+    protected static final int ROOT = 0;
+    /** Null link in an <TT>FPtreeNodes</TT> structure. */
+    protected static final int NULL_REF = -1;
+    /** Maximum number of siblings scanned to find a child before the 
+	 children of a node are indexed in the child table of the tree. */
+    private static final int MAX_LISTED_CHILDREN = 8;
+    /** Maximum number of elements of the count matrix of a tree (1 MB). */
+    private static final int MAX_PAIR_COUNTS = 1 << 18;
+    /** Number of frequent sets a mining buffer holds before passing them to
+	 the frequent set sink, if any. */
+    private static final int MAX_BUFFERED_SETS = 4096;
+    /** Storage (bytes) required for each node of an <TT>FPtreeNodes</TT> 
+	 structure: a char and five ints (four more bytes with more than 65535 
+	 items). */
+    private static final int NODE_STORAGE = 22;
+    
     // Data structures
     
-    /** Start reference for FP-tree. */
-    protected FPtreeNode rootNode = null;
+    /** The FP-tree. */
+    protected FPtreeNodes fpTree = null;
     /** Start reference for header table. */
     protected FPgrowthHeaderTable[] headerTable; 
-    /** Start reference for supportedSets linked list (temporary storage 
-	 only).*/
-    private static FPgrowthSupportedSets startTempSets = null;
     
     // Other fields 
     
-    /** Temporary storage for an index into an array of FP-tree nodes. </P>
-	 Used when reassigning child reference arrays. */
-    private int tempIndex  = 0;    	
     /** Number of nodes created. */
     private int numberOfNodes;
+    /** Buffer for the renumbered items of the record being added by 
+	 <TT>addToFPtree(int[],int,int)</TT>. */
+    private int[] rankedItemSet = new int[16];
+    /** The sink receiving the frequent sets while mining, null to add them
+	 to the T-tree. */
+    private FrequentSetSink sink = null;
+    /** The first exception thrown by the sink, if any. */
+    private IOException sinkException = null;
+    /** Buffer for the reconverted items of the frequent set being passed to
+	 the sink. */
+    private int[] sinkItemSet = new int[16];
     
     /* ------ CONSTRUCTORS ------ */
     
@@ -188,14 +457,14 @@ public class FPtree extends TotalSupportTree {
 		super(args);
 		
 		// Initialise root node
-		rootNode = new FPtreeNode();
+		fpTree = new FPtreeNodes(1);
 		
 		// Create header table	
 		headerTable = new FPgrowthHeaderTable[numOneItemSets+1];
 		
 		// Populate header table	
 		for (int index=1;index<headerTable.length;index++) {
-			headerTable[index] = new FPgrowthHeaderTable((short) index);
+			headerTable[index] = new FPgrowthHeaderTable(index);
 	    }
 	}	
 
@@ -203,15 +472,42 @@ public class FPtree extends TotalSupportTree {
 		super(transactions, numTransactions, minFreqPercent);
 		
 		// Initialise root node
-		rootNode = new FPtreeNode();
+		fpTree = new FPtreeNodes(1);
+		
+		// Create header table	
+		headerTable = new FPgrowthHeaderTable[numOneItemSets+1];
+		
+		// Populate header table	
+		for (int index=1;index<headerTable.length;index++) {
+			headerTable[index] = new FPgrowthHeaderTable(index);
+	    }
+	}	
+	
+    /** Constructor for an FP-tree built in a single pass, with the items 
+	 ordered according to a given ranking (e.g. their frequencies in the 
+	 whole data set) instead of their supports in the input data. Records are
+	 added with <TT>addToFPtree(int[],int,int)</TT>, then 
+	 <TT>finishFPtree</TT> is called before mining. <P> As the supports are 
+	 not known while the tree is built, no item is pruned from it, the items 
+	 without enough support are skipped when mining.
+	 @param rankedItems the items in rank order, most frequent first 
+	 (index 0 unused).
+	 @param minFreqPercent the minimum support (%). */
+    
+    public FPtree(int[] rankedItems, float minFreqPercent) {
+		super(rankedItems, minFreqPercent);
+		
+		// Initialise root node
+		fpTree = new FPtreeNodes(1);
 		
 		// Create header table	
 		headerTable = new FPgrowthHeaderTable[numOneItemSets+1];
 		
 		// Populate header table	
 		for (int index=1;index<headerTable.length;index++) {
-			headerTable[index] = new FPgrowthHeaderTable((short) index);
+			headerTable[index] = new FPgrowthHeaderTable(index);
 	    }
+		fpTree.allocatePairCounts(numOneItemSets);
 	}	
 
     
@@ -234,164 +530,161 @@ public class FPtree extends TotalSupportTree {
 		
 		// Populate header table	
 		for (int index=1;index<headerTable.length;index++) {
-			headerTable[index] = new FPgrowthHeaderTable((short) index);
+			headerTable[index] = new FPgrowthHeaderTable(index);
 	    }
 	    
+		// Create the tree, the arrays grow as needed
+		fpTree = new FPtreeNodes(dataArray.length+1);
+		fpTree.allocatePairCounts(numOneItemSets);
+		
 		// Process datatable, loop through data table (stored in data array)
 		// For each entry add the entry to the FP-tree.
 		
 		for (int index=0;index<dataArray.length;index++) {
 			// Non null record (if initial data set has been reordered and
 			// pruned some records may be empty
-			if (dataArray[index] != null) 
-				addToFPtree(rootNode,0,dataArray[index],1,headerTable);
+			if (dataArray[index] != null) numUpdates = numUpdates +
+				addToFPtree(fpTree,dataArray[index],dataArray[index].length,
+							1,headerTable);
 	    }         	                                                  
 	}
 	
-    /* ADD TO FP-TREE */   
-    /** Searches through current list of child refs looking for given item set.
-	 <P> If reference for current itemset found increments support count and 
-	 proceed down branch, otherwise adds to current level. 
-	 @param ref the current location in the FP-tree (<TT>rootNode</TT> at start).
-	 @param place the current index in the given itemset.
-	 @param itemSet the given itemset.
-	 @param support the associated support value for the given itemset.
-	 @param headerRef the link to the appropriate place in the header table. */
+    /* ADD RECORD TO FP-TREE */
     
-    private void addToFPtree(FPtreeNode ref, int place, short[] itemSet, 
-							 int support, FPgrowthHeaderTable[] headerRef) {  
-		if (place < itemSet.length) {
-			if (!addToFPtree1(ref,place,itemSet,support,headerRef)) 
-	    		addToFPtree2(ref,place,itemSet,support,headerRef);
-	    }
+    /** Adds a record to an FP-tree created with a given ranking of the items, 
+	 renumbering its items by rank and counting their supports. Items that 
+	 are not ranked are ignored.
+	 @param items the items of the record, in any order.
+	 @param length the number of items in the <TT>items</TT> array.
+	 @param count the number of occurrences of the record. */
+    
+    public void addToFPtree(int[] items, int length, int count) {
+		addToFPtree(items,0,length,count);
 	}
 	
-    /* ADD TO FP TREE 1 */    
-    /** Searches through existing branch and if itemset found updates the 
-	 support count and returns true, otherwise return false. 
-	 @param ref the current FP-tree node reference.
-	 @param place the current index in the given itemset.
-	 @param itemSet the given itemset.
-	 @param support the associated support value for the given itemset.
-	 @param headerRef the link to the appropriate place in the header table. 
-	 @return true if given itemset exists in FP-tree, and false otherwise. */
-    
-    private boolean addToFPtree1(FPtreeNode ref, int place, short[] itemSet,
-								 int support, FPgrowthHeaderTable[] headerRef) 
-	{	
-		
-		// Loop	
-		if (ref.childRefs != null) 
-		{
-			for (int index=0;index<ref.childRefs.length;index++) 
-			{
-				// If item is already in list of child refs
-				// increment count and proceed down branch.
-				if (itemSet[place] == ref.childRefs[index].node.itemName) 
-				{
-					ref.childRefs[index].node.itemCount =
-					ref.childRefs[index].node.itemCount + support;
-					numUpdates++;
-					addToFPtree(ref.childRefs[index],place+1,itemSet,support,
-								headerRef);
-					return(true);
-				}
-				// Child refs ordered lexicographically so break when passed
-				// point where item should be
-				if (itemSet[place] < ref.childRefs[index].node.itemName) 
-					return(false);
+    /** Adds the record made of the <TT>length</TT> items of the given array 
+	 starting at <TT>offset</TT>, as <TT>addToFPtree(int[],int,int)</TT>. 
+	 Records can be packed one after the other in the same array.
+	 @param items the array holding the items of the record.
+	 @param offset the position of the first item of the record.
+	 @param length the number of items of the record.
+	 @param count the number of times the record is in the data set. */
+    
+    public void addToFPtree(int[] items, int offset, int length, int count) {
+		if (rankedItemSet.length < length) rankedItemSet = new int[length];
+		
+		int size = 0;
+		for (int index=offset;index<offset+length;index++) {
+			int item = items[index];
+			if (item < conversionArray.length && conversionArray[item] != 0) {
+				conversionSupports[item] = conversionSupports[item]+count;
+				rankedItemSet[size++] = conversionArray[item];
 			}
-	    }	
-        
-		// Default
+	    }
+		numRows = numRows+count;
 		
-		return(false);
+		if (size > 0) {
+			Arrays.sort(rankedItemSet,0,size);
+			numUpdates = numUpdates + 
+				addToFPtree(fpTree,rankedItemSet,size,count,headerTable);
+	    }
 	}
 	
-    /* ADD TO FP TREE 2 */
+    /* FINISH FP-TREE */
     
-    /** Adds new node to FP-tree. <P> Adds first attribute in itemSet and then 
-	 rest of sequence. 
-	 @param ref the current FP-tree node reference.
-	 @param place the current index in the given itemset.
+    /** Sets the minimum support once all records have been added with 
+	 <TT>addToFPtree(int[],int,int)</TT>. */
+    
+    public void finishFPtree() {
+		System.out.println("\tnumber of records: " + numRows);
+		minSupport = (numRows * support)/100.0;
+		System.out.println("\tmin support (rows): " + twoDecPlaces(minSupport));
+	}
+	
+    /* ADD TO FP-TREE */   
+    /** Adds the given itemset to the FP-tree. <P> Follows the existing branch
+	 matching the itemset, incrementing the support counts of its nodes, and
+	 adds the rest of the itemset as a new branch as soon as there is no child 
+	 for the current item. Updates the count matrix of the tree, if any.
+	 @param tree the FP-tree.
 	 @param itemSet the given itemset.
+	 @param length the number of items of the itemset.
 	 @param support the associated support value for the given itemset.
-	 @param headerRef the link to the appropriate place in the header table. */
-    
-    private void addToFPtree2(FPtreeNode ref, int place, short[] itemSet,
-							  int support, FPgrowthHeaderTable[] headerRef) 
-	{	
-		
-		// Create new Item Prefix Subtree Node
-		FPgrowthItemPrefixSubtreeNode newPrefixNode = new 
-		FPgrowthItemPrefixSubtreeNode(itemSet[place],support,ref.node);
-		// Create new FP tree node incorporating new Item Prefix Subtree Node
-		FPtreeNode newFPtreeNode = new FPtreeNode(newPrefixNode);
-		// Add link from header table
-		addRefToFPgrowthHeaderTable(itemSet[place],newPrefixNode,headerRef);
-		// Add into FP tree
-		ref.childRefs = reallocFPtreeChildRefs(ref.childRefs,newFPtreeNode);
-		// Proceed down branch with rest of itemSet
-		addRestOfitemSet(ref.childRefs[tempIndex],newPrefixNode,place+1,itemSet,
-						 support,headerRef);
+	 @param headerRef the link to the appropriate place in the header table. 
+	 @return the number of existing nodes whose support was incremented. */
+    
+    private int addToFPtree(FPtreeNodes tree, int[] itemSet, int length, 
+							int support, FPgrowthHeaderTable[] headerRef) {  
+		int ref = ROOT;
+		int updates = 0;
+		
+		if (tree.pairCounts != null) 
+			tree.countPairs(itemSet,length,support,headerRef);
+		
+		for (int place=0;place<length;place++) {
+			// If item is already a child increment count and proceed down 
+			// branch.
+			int child = tree.getChild(ref,itemSet[place]);
+			if (child != NULL_REF) {
+				tree.itemCount[child] = tree.itemCount[child] + support;
+				updates++;
+				ref = child;
+				continue;
+			}
+			
+			// Otherwise add new node, and the rest of the itemset below it.
+			int newNode = tree.addChild(ref,itemSet[place],support);
+			addRefToFPgrowthHeaderTable(tree,itemSet[place],newNode,headerRef);
+			addRestOfitemSet(tree,newNode,place+1,itemSet,length,support,
+							 headerRef);
+			break;
+	    }
+		
+		return(updates);
 	}
-    
+	
     /* ADD REST OF ITEMSET */
     
-    /** Continues adding attributes in current itemset to FP-tree. 
-	 @param ref the current FP-tree node reference.
-	 @param backRef the backwards link to the previous node.
+    /** Continues adding attributes in current itemset to FP-tree, as a chain 
+	 of new nodes. 
+	 @param tree the FP-tree.
+	 @param ref the current FP-tree node (a new node without children).
 	 @param place the current index in the given itemset.
 	 @param itemSet the given itemset.
+	 @param length the number of items of the itemset.
 	 @param support the associated support value for the given itemset.
 	 @param headerRef the link to the appropriate place in the header table. */
     
-    private void addRestOfitemSet(FPtreeNode ref, FPgrowthItemPrefixSubtreeNode backRef, 
-								  int place, short[] itemSet, int support, 
+    private void addRestOfitemSet(FPtreeNodes tree, int ref, int place, 
+								  int[] itemSet, int length, int support, 
 								  FPgrowthHeaderTable[] headerRef) 
 	{
-        
-		// Process if more items in item set.
-		if (place<itemSet.length) {
-			// Create new Item Prefix Subtree Node
-			FPgrowthItemPrefixSubtreeNode newPrefixNode = new
-			FPgrowthItemPrefixSubtreeNode(itemSet[place],support,backRef);
-			// Create new FP tree node incorporating new Item Prefix Subtree 
-			// Node
-			FPtreeNode newFPtreeNode = new FPtreeNode(newPrefixNode);
+		// Process while more items in item set.
+		for (;place<length;place++) {
+			int newNode = tree.addNode(itemSet[place],support,ref);
+			tree.childRef[ref] = newNode;
 			// Add link from header table
-			addRefToFPgrowthHeaderTable(itemSet[place],newPrefixNode,headerRef);
-			ref.childRefs = reallocFPtreeChildRefs(ref.childRefs,newFPtreeNode);
-			// Add into FP tree
-			addRestOfitemSet(ref.childRefs[tempIndex],newPrefixNode,place+1,
-							 itemSet,support,headerRef);
+			addRefToFPgrowthHeaderTable(tree,itemSet[place],newNode,headerRef);
+			ref = newNode;
 	    }
 	}
 	
     /* ADD REF TO HEADER TABLE */
     
     /** Adds reference to new FP-tree node to header table moving old reference 
-	 so that it becomes a link from the new FP-tree node.
+	 so that it becomes a link from the new FP-tree node. Header tables, 
+	 global and local, are indexed by attribute.
+	 @param tree the FP-tree.
 	 @param columnNumber the given attribute.
 	 @param newNode the newly created FP-tree node.
 	 @param headerRef the reference to the header table (array). */
     
-    private void addRefToFPgrowthHeaderTable(short columnNumber, 
-											 FPgrowthItemPrefixSubtreeNode newNode, 
-											 FPgrowthHeaderTable[] headerRef) 
+    private void addRefToFPgrowthHeaderTable(FPtreeNodes tree, int columnNumber, 
+											 int newNode, FPgrowthHeaderTable[] headerRef) 
 	{
-        FPgrowthItemPrefixSubtreeNode tempRef;
-		
-		// Loop through header table
-		for (int index=1;index<headerRef.length;index++) {
-			// Found right attribute in table?
-			if (columnNumber == headerRef[index].itemName) {
-				tempRef = headerRef[index].nodeLink;
-				headerRef[index].nodeLink = newNode;
-				newNode.nodeLink = tempRef;
-				break;
-			}
-	    }   
+		FPgrowthHeaderTable header = headerRef[columnNumber];
+		tree.nodeLink[newNode] = header.nodeLink;
+		header.nodeLink = newNode;
 	}
 	
     /* ---------------------------------------------------------- */
@@ -406,28 +699,125 @@ public class FPtree extends TotalSupportTree {
 	 attribute to most common single attribute). For each item.
 	 a) Count support by following node links and add to linked list of 
 	 supported sets.
-	 b) Determine the "ancestor trails" connected to the nodes linked to the
-	 current item in the header table.
-	 c) Treat the list of ancestor itemSets as a new set of input data and 
-	 create a new header table based on the accumulated supported counts of 
-	 the single items in the ancestor itemSets 
-	 d) Prune the ancestor itemSets so as to remove unsupported items.
-	 e) Repeat (1) with local header table and list of pruned ancestor itemSets 
-	 as input */
+	 b) Count the support of the single items in the "ancestor trails" 
+	 connected to the nodes linked to the current item in the header table
+	 (the conditional pattern base), from the count matrix of the tree or
+	 by following the parent links of the nodes.
+	 c) Create a new header table from the supported items.
+	 d) Create a new FP-tree from the ancestor trails, following the parent
+	 links again and keeping the supported items only.
+	 e) Repeat (1) with local header table and FP-tree as input */
 	
     /* START MINING */
     
     /** Top level "FP-growth method" to mine the FP tree. */
     
     public void startMining() {
+		startMining(1);
+	}
+	
+    /** Top level "FP-growth method" to mine the FP tree using the given 
+	 number of threads. <P> The conditional FP-trees of the items in the 
+	 header table are independent of each other, so when more than one thread
+	 is requested each item is mined as a separate task on a fork-join pool. 
+	 Each task collects its frequent sets in its own buffer which is added to 
+	 the T-tree when the task completes.
+	 @param parallelism the number of mining threads. */
+    
+    public void startMining(int parallelism) {
         
 		//System.out.println("Mining FP-tree");
 		
-    	startMining(headerTable,null);
+		if (parallelism <= 1) {
+			FPgrowthMiningBuffer buffer = new FPgrowthMiningBuffer();
+			for (int index=headerTable.length-1;index>=1;index--) {
+				if (headerTable[index].nodeLink != NULL_REF) {
+					startMining(fpTree,headerTable,index,null,buffer);
+					outputBuffer(buffer);
+				}
+			}
+			return;
+	    }
+		
+		// One task per header table item, least frequent (largest 
+		// conditional trees) first
+		
+		ArrayList<FPgrowthMiningTask> tasks = 
+		new ArrayList<FPgrowthMiningTask>(headerTable.length);
+		for (int index=headerTable.length-1;index>=1;index--) {
+			if (headerTable[index].nodeLink != NULL_REF) 
+				tasks.add(new FPgrowthMiningTask(index));
+	    }
+		
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		try {
+			for (FPgrowthMiningTask task : tasks) pool.execute(task);
+			for (FPgrowthMiningTask task : tasks) task.join();
+	    }
+		finally {
+			pool.shutdown();
+	    }
 		
 		// Generate ARs
 		//generateARs();
 	}
+	
+    /** Mines the FP tree using the given number of threads, as 
+	 <TT>startMining(int)</TT>, passing the frequent sets to the given sink 
+	 as they are found instead of adding them to the T-tree, which stays 
+	 empty. The frequent sets are then never all held in memory, but no 
+	 rules can be generated from them.
+	 @param parallelism the number of mining threads.
+	 @param frequentSetSink the sink receiving the frequent sets.
+	 @throws IOException if the sink failed, mining being stopped. */
+    
+    public void startMining(int parallelism, FrequentSetSink frequentSetSink) 
+		throws IOException {
+		sink = frequentSetSink;
+		sinkException = null;
+		try {
+			startMining(parallelism);
+	    }
+		finally {
+			sink = null;
+	    }
+		if (sinkException != null) throw sinkException;
+	}
+	
+    /* OUTPUT MINING BUFFER */
+    
+    /** Adds the frequent sets held in the given buffer to the T-tree, or
+	 passes them to the sink if there is one, and empties the buffer. 
+	 <P> Synchronized as concurrent mining tasks share the T-tree and the 
+	 sink.
+	 @param buffer the mining buffer. */
+    
+    private synchronized void outputBuffer(FPgrowthMiningBuffer buffer) {
+		if (sink == null) {
+			for (int index=0;index<buffer.size;index++) 
+				addToTtree(buffer.itemSets[index],buffer.supports[index]);
+	    }
+		else if (sinkException == null) {
+			try {
+				for (int index=0;index<buffer.size;index++) {
+					int[] itemSet = buffer.itemSets[index];
+					if (sinkItemSet.length < itemSet.length) 
+						sinkItemSet = new int[itemSet.length];
+					for (int place=0;place<itemSet.length;place++) 
+						sinkItemSet[place] = reconvertItem(itemSet[place]);
+					sink.addFrequentSet(sinkItemSet,itemSet.length,
+										buffer.supports[index]);
+				}
+		    }
+			catch (IOException e) {
+				// Rethrown by startMining(int,FrequentSetSink), the sets 
+				// found by other tasks are discarded
+				sinkException = e;
+		    }
+	    }
+		numUpdates = numUpdates+buffer.numUpdates;
+		buffer.clear();
+	}
     
     /* START MINING */
     
@@ -442,71 +832,133 @@ public class FPtree extends TotalSupportTree {
 	 new local header table and (iii) populate with ancestors.
 	 <LI> If new local FP tree is not empty repeat mining operation.
 	 </OL>
-	 Otherwise end. 
+	 Otherwise end. <P> An FP-tree made of a single path is not mined item by 
+	 item: its frequent sets are all the subsets of the items of the path, 
+	 which are enumerated directly. 
+	 @param tree the FP-tree the header table links into.
 	 @param tableRef the reference to the current location in the header table
 	 (commencing with the last item).
 	 @param itemSetSofar the label fot the current item sets as generated to
-	 date (null at start). */	
+	 date (null at start). 
+	 @param buffer the mining buffer of the current task. */	
     
-    private void startMining(FPgrowthHeaderTable[] tableRef, 
-							 short[] itemSetSofar) 
+    private void startMining(FPtreeNodes tree, FPgrowthHeaderTable[] tableRef, 
+							 int[] itemSetSofar, FPgrowthMiningBuffer buffer) 
 	{
+		if (tree.singlePath) {
+			minePath(tree,itemSetSofar,buffer);
+			return;
+	    }
+		
         int headerTableEnd = tableRef.length-1;
-		FPgrowthColumnCounts[] countArray = null;
-		FPgrowthHeaderTable[] localHeaderTable = null;
-		FPtreeNode localRoot;
-		int support;
-		short[] newCodeSofar;
 		
 		// Loop through header table from end to start, item by item
 		
         for (int index=headerTableEnd;index>=1;index--) {
-			// Check for null link
-			if (tableRef[index].nodeLink != null) {
+			// Check for unsupported item and null link
+			if (tableRef[index] != null && tableRef[index].nodeLink != NULL_REF) {
 				// process trail of links from header table element
-				startMining(tableRef[index].nodeLink,tableRef[index].itemName,
-							itemSetSofar);
+				startMining(tree,tableRef,index,itemSetSofar,buffer);
 			}
 	    }
 	}
 	
     /** Commence process of mining FP tree with respect to a single element in
 	 the header table.
-	 @param nodeLink the firsty link from the header table pointing to an FP-tree
-	 node.
-	 @param itemName the label associated with the element of interest in the 
-	 header table.
-	 @param itemSetSofar the item set represented by the current FP-tree. */
+	 @param tree the FP-tree.
+	 @param tableRef the header table linking into the FP-tree.
+	 @param index the index of the element of interest in the header table 
+	 (its attribute).
+	 @param itemSetSofar the item set represented by the current FP-tree. 
+	 @param buffer the mining buffer of the current task. */
 	
-    protected void startMining(FPgrowthItemPrefixSubtreeNode nodeLink,	
-							   short itemName, short[] itemSetSofar) 
+    private void startMining(FPtreeNodes tree, FPgrowthHeaderTable[] tableRef,
+							 int index, int[] itemSetSofar, 
+							 FPgrowthMiningBuffer buffer) 
 	{
-		
-    	// Count support for current item in header table and store a
-		// T-tree data structure
-		int support = genSupHeadTabItem(nodeLink); 
-		short[] newCodeSofar = realloc2(itemSetSofar,itemName);
-		addToTtree(newCodeSofar,support); 
-		
-		// Collect ancestor itemSets and store in linked list structure 
-		startTempSets=null;
-		generateAncestorCodes(nodeLink); 
-		
-		// Process Ancestor itemSets
-		if (startTempSets != null) {
-			// Count singles in linked list
-			FPgrowthColumnCounts[] countArray = countFPgrowthSingles(); 
-			// Create and populate local header table
-			FPgrowthHeaderTable[] localHeaderTable = 
-			createLocalHeaderTable(countArray); 
-			if (localHeaderTable != null) {
-				// Prune ancestor itemSets
-				pruneAncestorCodes(countArray); 
-				// Create new local root for local FP tree
-				FPtreeNode localRoot = generateLocalFPtree(localHeaderTable);
-				// Mine new FP tree
-				startMining(localHeaderTable,newCodeSofar);
-			}
+		int nodeLink = tableRef[index].nodeLink;
+		
+    	// Count support for current item in header table and store in
+		// the mining buffer
+		int support = genSupHeadTabItem(tree,nodeLink,buffer); 
+		// Only possible for the items of a tree built with a given ranking,
+		// which are not pruned beforehand
+		if (support < minSupport) return;
+		int[] newCodeSofar = realloc2(itemSetSofar,tableRef[index].itemName);
+		buffer.addItemSet(newCodeSofar,support); 
+		
+		// Count singles in the ancestor itemSets
+		if (tree.pairCounts != null) 
+			readPairCounts(tree,tableRef,index,buffer);
+		else countAncestors(tree,nodeLink,buffer);
+		
+		// Create and populate local header table
+		FPgrowthHeaderTable[] localHeaderTable = 
+			createLocalHeaderTable(index,buffer); 
+		if (localHeaderTable != null) {
+			// Create new local FP tree
+			FPtreeNodes localTree = generateLocalFPtree(tree,nodeLink,
+														localHeaderTable,
+														buffer);
+			// Mine new FP tree
+			startMining(localTree,localHeaderTable,newCodeSofar,buffer);
+	    }
+	}
+	
+    /* MINE SINGLE PATH */
+    
+    /** Adds to the mining buffer all the subsets of the items of an FP-tree
+	 made of a single path, down to the last supported node. The support of 
+	 a subset is the support of the node of its last item. 
+	 @param tree the FP-tree.
+	 @param itemSetSofar the item set represented by the current FP-tree. 
+	 @param buffer the mining buffer of the current task. */
+    
+    private void minePath(FPtreeNodes tree, int[] itemSetSofar, 
+						  FPgrowthMiningBuffer buffer) {
+		int[] path = buffer.path;
+		int[] pathCounts = buffer.pathCounts;
+		int length = 0;
+		
+		// Collect the supported nodes of the path, supports only decrease 
+		// downwards
+		
+		for (int ref=tree.childRef[ROOT];ref!=NULL_REF;ref=tree.childRef[ref]) {
+			if (tree.itemCount[ref] < minSupport) break;
+			if (length == path.length) path = Arrays.copyOf(path,length*2);
+			if (length == pathCounts.length) 
+				pathCounts = Arrays.copyOf(pathCounts,length*2);
+			path[length] = tree.getItemName(ref);
+			pathCounts[length] = tree.itemCount[ref];
+			length++;
+	    }
+		buffer.path = path;
+		buffer.pathCounts = pathCounts;
+		
+		// Enumerate the subsets depth first, each with its items in path
+		// order followed by the item set so far
+		
+		int sofarLength = (itemSetSofar == null) ? 0 : itemSetSofar.length;
+		int[] chosen = new int[length];
+		int numChosen = 0;
+		int next = 0;
+		while (true) {
+			if (next < length) {
+				// Add the next item and output the subset
+				chosen[numChosen++] = next;
+				int[] itemSet = new int[numChosen+sofarLength];
+				for (int index=0;index<numChosen;index++) 
+					itemSet[index] = path[chosen[index]];
+				if (sofarLength > 0) System.arraycopy(itemSetSofar,0,itemSet,
+													  numChosen,sofarLength);
+				buffer.addItemSet(itemSet,pathCounts[next]);
+				next++;
+		    }
+			else {
+				// Backtrack, replacing the last item with the one after it
+				if (numChosen == 0) break;
+				next = chosen[--numChosen]+1;
+		    }
 	    }
 	}
 	
@@ -520,18 +972,21 @@ public class FPtree extends TotalSupportTree {
     
     /** Counts support for single attributes in header table by following node 
 	 links. 
+	 @param tree the FP-tree.
 	 @param nodeLink the start link from the header table. 
+	 @param buffer the mining buffer of the current task.
 	 @return the support valye for the item set indicated by the header table. */
     
-    private int genSupHeadTabItem(FPgrowthItemPrefixSubtreeNode nodeLink) {
+    private int genSupHeadTabItem(FPtreeNodes tree, int nodeLink, 
+								  FPgrowthMiningBuffer buffer) {
         int counter = 0;
 		
 		// Loop
 		
-        while(nodeLink != null) {
-			counter = counter+nodeLink.itemCount;
-			numUpdates++;
-			nodeLink = nodeLink.nodeLink;
+        while(nodeLink != NULL_REF) {
+			counter = counter+tree.itemCount[nodeLink];
+			buffer.numUpdates++;
+			nodeLink = tree.nodeLink[nodeLink];
 	    }	
 		
 		// Return
@@ -541,226 +996,113 @@ public class FPtree extends TotalSupportTree {
 	
     /* ---------------------------------------------------------------------- */
     /*                                                                        */
-    /*                              ANCESTOR CODES                            */
+    /*              COUNT SINGLE ITEMS IN CONDITIONAL PATTERN BASE            */
     /*                                                                        */
     /* ---------------------------------------------------------------------- */  
     
-    /* GENERATE ANCESTOR CODES */
+    /* COUNT ANCESTORS */
     
-    /** Generates ancestor itemSets are made up of the parent nodes of a given 
-	 node. This method collects such itemSets and stores them in a linked list 
-	 pointed at by startTempSets. 
-	 @param ref the reference to the current node in the prefix tree containing
-	 itemsets together with support values.*/
+    /** Counts the single items in the ancestor itemSets of the nodes linked 
+	 from a header table element, made up of the parent nodes of each node, 
+	 into the counts of the mining buffer. The ancestors of a node have 
+	 smaller attributes than the node.
+	 @param tree the FP-tree.
+	 @param ref the start link from the header table.
+	 @param buffer the mining buffer of the current task. */
 	
-    private void generateAncestorCodes(FPgrowthItemPrefixSubtreeNode ref) {
-        short[] ancestorCode = null;
-		int support;
-		
-		// Loop
-		
-        while(ref != null) {
-			support = ref.itemCount;
-			ancestorCode = getAncestorCode(ref.parentRef);
-			// Add to linked list with current support
-			if (ancestorCode != null) startTempSets = 
-				new FPgrowthSupportedSets(ancestorCode,support,
-										  startTempSets);
-			// Next ref	
-			ref = ref.nodeLink;
+    private void countAncestors(FPtreeNodes tree, int ref, 
+								FPgrowthMiningBuffer buffer) {
+		int[] counts = buffer.counts;
+		
+		// Loop through the linked nodes and up their branches
+		
+        while(ref != NULL_REF) {
+			int support = tree.itemCount[ref];
+			for (int parent=tree.parentRef[ref];parent!=ROOT;
+				 parent=tree.parentRef[parent]) {
+				int item = tree.getItemName(parent);
+				counts[item] = counts[item]+support;
+				buffer.numUpdates++;
+			}
+			ref = tree.nodeLink[ref];
 	    }	
 	}
 	
-    /* GET ANCESTOR CODE */
-    
-    /** Generate the ancestor itemSet from a given node. 
-	 @param ref the reference to the current node in the prefix tree containing
-	 itemsets together with support values. */
+    /* READ PAIR COUNTS */
+    
+    /** Copies the supports of the single items in the ancestor itemSets of a
+	 header table element from the count matrix of the tree, the row of the 
+	 element, into the counts of the mining buffer. 
+	 @param tree the FP-tree.
+	 @param tableRef the header table linking into the FP-tree.
+	 @param index the index of the element in the header table.
+	 @param buffer the mining buffer of the current task. */
 	
-    private short[] getAncestorCode(FPgrowthItemPrefixSubtreeNode ref) {
-        short[] itemSet = null;
-		
-		if (ref == null) return(null);
+    private void readPairCounts(FPtreeNodes tree, FPgrowthHeaderTable[] tableRef,
+								int index, FPgrowthMiningBuffer buffer) {
+		int row = pairIndex(tableRef[index].position,1);
 		
-		// Else process
-		
-		while (ref != null) {
-			itemSet = realloc2(itemSet,ref.itemName);
-			ref = ref.parentRef;
+		for (int item=1;item<index;item++) {
+			if (tableRef[item] != null) buffer.counts[item] = 
+				tree.pairCounts[row+tableRef[item].position-1];
 	    }
-		
-		// Return
-		
-		return(itemSet);
 	}
 	
-    /* PRUNE ANCESTOR CODES */
-    
-    /** Removes elements in ancestor itemSets (pointed at by 
-	 <TT>startTempSets</TT>) which are not supported by referring to count 
-	 array (which contains all the current supported 1 itemsets). 
-	 @param countArray the array of <TT>FPgrowthColumnCounts</TT> structures 
-	 describing the single item sets (in terms of labels and associated 
-	 support), contained in a linked list of <TT>FPgrowthSupportedSets</TT>
-	 which in turn describe the ancestor nodes in an FP-tree that preceed the 
-	 nodes identified by following a trail of links from a particular item in 
-	 the header table.    */
-    
-    private void pruneAncestorCodes(FPgrowthColumnCounts[] countArray) {
-		FPgrowthSupportedSets ref = startTempSets;
-		
-		// Loop through linked list of ancestor paths
-		
-		while(ref != null) { 
-			for(int index=0;index<ref.itemSet.length;index++) {
-				if (countArray[ref.itemSet[index]].support < minSupport)
-					ref.itemSet = removeElementN(ref.itemSet,index);
-			}
-			ref = ref.nodeLink;
-	    }
-	}
-	
-    /* ---------------------------------------------------------------------- */
-    /*                                                                        */
-    /*      CREATE NEW HEADER TABLE FROM SINGLE ITEMS IN ANCESTOR CODES       */
-    /*                                                                        */
-    /* ---------------------------------------------------------------------- */  
-    
-    /* COUNT SINGLES */
+    /* PAIR INDEX */
     
-    /** Counts frequent 1 item sets in ancestor itemSets linked list and place 
-	 into an array. 
-	 @return array of <TT>FPgrowthColumnCounts</TT> structures describing the
-	 single item sets (in terms of labels and associated support), contained in 
-	 a linked list of <TT>FPgrowthSupportedSets</TT> which in turn describe the 
-	 ancestor nodes in an FP-tree that preceed the nodes identified by following 
-	 a trail of links from a particular item in the header table. */
+    /** Gives the index in a count matrix of the pair of items at the given
+	 positions in the header table. 
+	 @param position the larger position.
+	 @param otherPosition the smaller position.
+	 @return the index. */
     
-    private FPgrowthColumnCounts[] countFPgrowthSingles() {
-        int index, place=0;
-		FPgrowthSupportedSets nodeLink = startTempSets; // Start of linked list
-        
-		// Dimension array, assume all attributes present, then it will
-		// be possible to index in to the array.
-		
-		FPgrowthColumnCounts[] countArray = new 
-		FPgrowthColumnCounts[numOneItemSets+1];	
-		
-		// Initialise array
-		
-		for (index=1;index<numOneItemSets+1;index++) countArray[index] = 
-			new FPgrowthColumnCounts(index);
-	    
-		// Loop through linked list of ancestor itemSets
-		
-		while (nodeLink != null) {
-			// Loop through itemSet 
-			for (index=0;index<nodeLink.itemSet.length;index++) {
-				place = nodeLink.itemSet[index];
-				countArray[place].support = countArray[place].support +
-				nodeLink.support;
-				numUpdates++;
-			}
-			nodeLink = nodeLink.nodeLink;
-	    }    
-		
-		// Return
-		
-		return(countArray);
+    private static int pairIndex(int position, int otherPosition) {
+		return((position-1)*(position-2)/2+otherPosition-1);
 	}
 	
     /* CREATE LOCAL HEADER TABLE */
     
-    /** Creates a local header table comprising those item that are supported 
-	 in the count array. 
-	 @param countArray the support for the 1 item sets. 
-	 @return a FPgrowth header table. */
-    
-    private FPgrowthHeaderTable[] 
-	createLocalHeaderTable(FPgrowthColumnCounts[] countArray) {
-        int index;
-		FPgrowthHeaderTable[] localHeaderTable;
-		
-		localHeaderTable = localHeadTabUnordered(countArray);
-		
-		// Order according single item support
-		
-        //orderLocalHeaderTable(localHeaderTable,countArray);
-		
-		// Return
-		
-		return(localHeaderTable);
-	}		
-    
-    /* CREATE NEW LOCAL HEADER TABLE (UNORDERED) */
-    
-    /** Creatwx a new local header table, but unorderd. 
-	 @param countArray the csupport for the 1 item sets. 
-	 @return a FPgrpwth header table. */
-    
-    private FPgrowthHeaderTable[] 
-	localHeadTabUnordered(FPgrowthColumnCounts[] countArray) {
-        int counter = 1;
-		
-		// Loop through array and count supported one item sets	 
-		for (int index=1;index<countArray.length;index++) {
-			if (countArray[index].support >= minSupport) counter++;
+    /** Creates a local header table comprising those items that are 
+	 supported in the counts of the mining buffer, and resets the counts. 
+	 Like the global header table it is indexed by attribute, up to the last
+	 supported one, the elements of the unsupported attributes being null. 
+	 The supported items are given successive positions.
+	 @param end the attribute of the header table element being mined, all 
+	 the counted attributes being smaller.
+	 @param buffer the mining buffer of the current task. 
+	 @return a FPgrowth header table, null if no item is supported. */
+    
+    private FPgrowthHeaderTable[] createLocalHeaderTable(int end,
+											FPgrowthMiningBuffer buffer) {
+		int[] counts = buffer.counts;
+        int last = 0;
+		
+		// Loop through array and find last supported one item set	 
+		for (int index=1;index<end;index++) {
+			if (counts[index] >= minSupport) last = index;
 	    }
 	    
-		// Build new Header Table array containing only supported items
+		// Build new Header Table array up to the last supported item
 		
-		if (counter == 1) return(null);
-		FPgrowthHeaderTable[] localHeaderTable = 
-		new FPgrowthHeaderTable[counter];
+		FPgrowthHeaderTable[] localHeaderTable = null;
+		if (last != 0) localHeaderTable = new FPgrowthHeaderTable[last+1];
 	    
 		// Populate header table
 		
-		int place=1;
-		for (int index=1;index<countArray.length;index++) {
-			if (countArray[index].support >= minSupport) {
-				localHeaderTable[place] = new 
-				FPgrowthHeaderTable((short) countArray[index].columnNum);    
-				place++;
+		int position = 0;
+		for (int index=1;index<=last;index++) {
+			if (counts[index] >= minSupport) {
+				localHeaderTable[index] = new FPgrowthHeaderTable(index);
+				localHeaderTable[index].position = ++position;
 	        }
-	    }    
+	    }
+		Arrays.fill(counts,1,end,0);
         
 		// Return
 		
 		return(localHeaderTable);
 	}
 	
-    /* ORDER LOCAL HEADER TABLE */
-    
-    /** Orders local header table (currently unused).  
-	 @param localHeaderTable the FPgrpwth header table to be ordered.
-	 @param countArray the csupport for the 1 item sets. */
-    
-    private void orderLocalHeaderTable(FPgrowthHeaderTable[] localHeaderTable,
-									   FPgrowthColumnCounts[] countArray) {    	
-		boolean isOrdered; 
-		FPgrowthHeaderTable temp;
-		int index, place1, place2;
-		
-		//loop through table
-        do {
-            index = 1;
-			isOrdered=true;
-			while (index < (localHeaderTable.length-1)) {
-				place1 = localHeaderTable[index].itemName;
-                place2 = localHeaderTable[index+1].itemName; 
-                if (countArray[place1].support > countArray[place2].support) {
-					isOrdered=false;
-					// Swap
-                    temp = localHeaderTable[index];
-					localHeaderTable[index] = localHeaderTable[index+1];
-                    localHeaderTable[index+1] = temp;
-	            }
-				// increment index
-				index++;
-			} 
-	    } while (isOrdered==false);
-	}
-    
     /* ---------------------------------------------------------------------- */
     /*                                                                        */
     /*                         GENERATE NEW FP-TREE                           */
@@ -769,78 +1111,59 @@ public class FPtree extends TotalSupportTree {
 	
     /* GENERATE LOCAL FP-tree */
     
-    /** Generates a local FP tree 
-	 @param tableRef reference to start of header table containing links to
-	 an FP-tree produced during the FP-tree generation process.
-	 @rerurn reference to the start of the generated FP-tree*/
-    
-    private FPtreeNode generateLocalFPtree(FPgrowthHeaderTable[] tableRef) {
-		FPgrowthSupportedSets ref = startTempSets;
-		FPtreeNode localRoot = new FPtreeNode(); 
-		
-		// Loop
-		
-        while(ref != null) { 	 
-			// Add to conditional FP tree   
-			if (ref.itemSet != null) addToFPtree(localRoot,0,ref.itemSet,
-												 ref.support,tableRef);  
-       	    ref = ref.nodeLink;
-	    }
-		
-		// Return
-		
-		return(localRoot);
-	} 
-	
-    /* ---------------------------------------------------------- */
-    /*                                                            */
-    /*                     FP-TREE UTILITIES                      */
-    /*                                                            */
-    /* ---------------------------------------------------------- */
-	
-    /* REALLOC 1 FP-TREE */
-    
-    /** Resizes the given array of FP-tree nodes so that its length is 
-	 increased by one element and new element inserted.
-	 @param oldArray the given array of FP-tree nodes.
-	 @param newNode the given node to be added to the FP-tree
-	 @return The revised array of FP-tree nodes. */
-    
-    private FPtreeNode[] reallocFPtreeChildRefs(FPtreeNode[] oldArray, 
-												FPtreeNode newNode) {
-		
-		// No old array
-		
-		if (oldArray == null) {
-			FPtreeNode[] newArray = {newNode};
-			tempIndex = 0;
-			return(newArray);
+    /** Generates a local FP tree from the ancestor itemSets of the nodes 
+	 linked from a header table element, following the parent links of each
+	 node and keeping the items of the local header table.
+	 @param tree the FP-tree.
+	 @param ref the start link from the header table.
+	 @param tableRef the local header table.
+	 @param buffer the mining buffer of the current task.
+	 @return the generated FP-tree */
+    
+    private FPtreeNodes generateLocalFPtree(FPtreeNodes tree, int ref,
+											FPgrowthHeaderTable[] tableRef,
+											FPgrowthMiningBuffer buffer) {
+		FPtreeNodes localTree = new FPtreeNodes(tableRef.length); 
+		int numPositions = 0;
+		for (int index=1;index<tableRef.length;index++) {
+			if (tableRef[index] != null) numPositions++;
 	    }
-		
-		// Otherwise create new array with length one greater than old array
-		
-		int oldArrayLength = oldArray.length;
-		FPtreeNode[] newArray = new FPtreeNode[oldArrayLength+1];
-		
-		// Insert new node in correct lexicographic order.
-		
-		for (int index1=0;index1 < oldArrayLength;index1++) {
-			if (newNode.node.itemName < oldArray[index1].node.itemName) {
-				newArray[index1] = newNode;
-				for (int index2=index1;index2<oldArrayLength;index2++)
-					newArray[index2+1] = oldArray[index2];
-				tempIndex = index1;
-				return(newArray);
+		localTree.allocatePairCounts(numPositions);
+		
+		// Loop through the linked nodes
+		
+        while(ref != NULL_REF) { 	 
+			// Collect the supported ancestors, from the bottom up
+			int length = 0;
+			for (int parent=tree.parentRef[ref];parent!=ROOT;
+				 parent=tree.parentRef[parent]) {
+				int item = tree.getItemName(parent);
+				if (item < tableRef.length && tableRef[item] != null) {
+					if (length == buffer.path.length) 
+						buffer.path = Arrays.copyOf(buffer.path,length*2);
+					buffer.path[length++] = item;
+				}
+			}
+			
+			// Add to conditional FP tree, in attribute order
+			if (length > 0) {
+				int[] path = buffer.path;
+				for (int low=0, high=length-1;low<high;low++, high--) {
+					int item = path[low];
+					path[low] = path[high];
+					path[high] = item;
+				}
+				buffer.numUpdates = buffer.numUpdates +
+					addToFPtree(localTree,path,length,tree.itemCount[ref],
+								tableRef);  
 			}
-			newArray[index1] = oldArray[index1];
+       	    ref = tree.nodeLink[ref];
 	    }
 		
-		// Default
+		// Return
 		
-		newArray[oldArrayLength] = newNode;
-		tempIndex = oldArrayLength;
-		return(newArray);
-	}
+		return(localTree);
+	} 
 	
     /*------------------------------------------------------------------ */
     /*                                                                   */
@@ -859,42 +1182,47 @@ public class FPtree extends TotalSupportTree {
         for(int index=1;index<headerTable.length;index++) {
 			System.out.println("Header = " + 
 							   reconvertItem(headerTable[index].itemName));
-			flag = outputItemPrefixTree(headerTable[index].nodeLink);
+			flag = outputItemPrefixTree(fpTree,headerTable[index].nodeLink);
 			if (flag!=1) System.out.println();
 	    }
 		System.out.println();
 	}
     
     /** Commences process of outputting a local prefix sub tree to the screen. 
+	 @param tree the local FP-tree.
 	 @param tableRef the reference to the local header table. */
 	
-    private void outputItemPrefixSubtree(FPgrowthHeaderTable[] tableRef) {
+    private void outputItemPrefixSubtree(FPtreeNodes tree, 
+										 FPgrowthHeaderTable[] tableRef) {
         int flag;
         System.out.println("PREFIX SUBTREE FROM LOCAL HEADER TABLE");
         for(int index=1;index<tableRef.length;index++) {
+			if (tableRef[index] == null) continue;
 			System.out.println("Header = " + 
 	                           reconvertItem(tableRef[index].itemName));
-			flag = outputItemPrefixTree(tableRef[index].nodeLink);
+			flag = outputItemPrefixTree(tree,tableRef[index].nodeLink);
 			if (flag!=1) System.out.println();
 	    }
 		System.out.println();
 	}
 	
     /** Outputs the given prefix sub tree. 
+	 @param tree the FP-tree.
 	 @param ref the reference to the given branch. 
 	 @return a counter representing the current "node number" (used in 
 	 output). */	
     
-    private int outputItemPrefixTree(FPgrowthItemPrefixSubtreeNode ref) {
+    private int outputItemPrefixTree(FPtreeNodes tree, int ref) {
         int counter = 1;
 		
 		// Loop
 		
-		while (ref != null) {
+		while (ref != NULL_REF) {
             System.out.print("(" + counter + ") " + 
-							 (reconvertItem(ref.itemName)) + ":" + ref.itemCount + " ");
+							 (reconvertItem(tree.getItemName(ref))) + ":" + 
+							 tree.itemCount[ref] + " ");
 			counter++;
-			ref = ref.nodeLink;
+			ref = tree.nodeLink[ref];
 	    }
 		
 		return(counter);
@@ -906,53 +1234,50 @@ public class FPtree extends TotalSupportTree {
     
     public void outputFPtree() {
         System.out.println("FP TREE");
-		outputFPtreeNode1();
+		outputFPtreeNode2(fpTree,fpTree.childRef[ROOT],"");
         System.out.println();
 	}
     
-    /** Commences process of outputting a given branch of an FP-tree to the
-	 screen. 
-	 @param ref the reference to the given FP-tree branch. */
+    /** Commences process of outputting a local FP-tree to the screen. 
+	 @param tree the local FP-tree. */
     
-    private void outputFPtreeNode(FPtreeNode ref) {
+    private void outputFPtreeNode(FPtreeNodes tree) {
         System.out.println("LOCAL FP TREE");
-		outputFPtreeNode2(ref.childRefs,"");
+		outputFPtreeNode2(tree,tree.childRef[ROOT],"");
         System.out.println();
 	}
 	
-    /** Continues process of outputting FP-tree to screen. */
-	
-    private void outputFPtreeNode1() {
-		outputFPtreeNode2(rootNode.childRefs,"");
-	}
-	
     /** Outputs a given level in an FP-tree to the screen.
-	 @param ref the reference to the given FP-tree level.
+	 @param tree the FP-tree.
+	 @param ref the first node of the given FP-tree level.
 	 @param nodeID the root string for the node ID. */
 	
-    private void outputFPtreeNode2(FPtreeNode ref[],String nodeID) {
-        if (ref == null) return;
+    private void outputFPtreeNode2(FPtreeNodes tree, int ref, String nodeID) {
+		int index = 0;
 		
-		// Otherwise process
-		
-        for (int index=0;index<ref.length;index++) {
+        while (ref != NULL_REF) {
 			System.out.print("(" + nodeID + (index+1) + ") ");
-			outputItemPrefixSubtreeNode(ref[index].node);
-			outputFPtreeNode2(ref[index].childRefs,nodeID+(index+1)+".");
+			outputItemPrefixSubtreeNode(tree,ref);
+			outputFPtreeNode2(tree,tree.childRef[ref],nodeID+(index+1)+".");
+			ref = tree.siblingRef[ref];
+			index++;
 	    }
 	}
 	
     /* OUTPUT ITEM PREFIX SUB-TREE NODE	*/
     
     /** Outputs the given prefix sub tree node. 
+	 @param tree the FP-tree.
 	 @param ref the reference to the given node. */
     
-    public void outputItemPrefixSubtreeNode(FPgrowthItemPrefixSubtreeNode ref) {
-        System.out.print((reconvertItem(ref.itemName)) + ":" + ref.itemCount);
-		if (ref.nodeLink != null) {
+    private void outputItemPrefixSubtreeNode(FPtreeNodes tree, int ref) {
+        System.out.print((reconvertItem(tree.getItemName(ref))) + ":" + 
+						 tree.itemCount[ref]);
+		int link = tree.nodeLink[ref];
+		if (link != NULL_REF) {
 			System.out.println(" (ref to " + 
-							   (reconvertItem(ref.nodeLink.itemName)) + ":" +
-							   ref.nodeLink.itemCount + ")");
+							   (reconvertItem(tree.getItemName(link))) + ":" +
+							   tree.itemCount[link] + ")");
 	    }	
 		else System.out.println(" (ref to null)");
 	}
@@ -963,51 +1288,54 @@ public class FPtree extends TotalSupportTree {
 	 table */
     
     private void outputAncesterTrail() {
-        int flag;
         System.out.println("ANCESTOR TRAIL FROM HEADER TABLE");
         for(int index=1;index<headerTable.length;index++) {
 			System.out.println("Header = " + 
 							   (reconvertItem(headerTable[index].itemName)));
-			outputAncestorTrail1(headerTable[index].nodeLink);
+			outputAncestorTrail1(fpTree,headerTable[index].nodeLink);
 	    }
 		System.out.println();
 	}
     
     /** Commence the process of outputting the ancestor trail from a local
 	 header table.
+	 @param tree the local FP-tree.
 	 @param tableRef the reference to the local header table. */
     
-    private void outputAncesterTrail(FPgrowthHeaderTable[] tableRef) {
-        int flag;
+    private void outputAncesterTrail(FPtreeNodes tree, 
+									 FPgrowthHeaderTable[] tableRef) {
         System.out.println("ANCESTOR TRAIL FROM LOCAL HEADER TABLE");
         for(int index=1;index<tableRef.length;index++) {
+			if (tableRef[index] == null) continue;
 			System.out.println("Header = " + 
 							   (reconvertItem(tableRef[index].itemName)));
-			outputAncestorTrail1(tableRef[index].nodeLink);
+			outputAncestorTrail1(tree,tableRef[index].nodeLink);
 	    }
 		System.out.println();
 	}
 	
     /** Outputs the ancestor trail given a prefix sub tree. 
+	 @param tree the FP-tree.
 	 @param ref the reference to the given branch. */	
     
-    private void outputAncestorTrail1(FPgrowthItemPrefixSubtreeNode ref) {
-		while (ref != null) {
+    private void outputAncestorTrail1(FPtreeNodes tree, int ref) {
+		while (ref != NULL_REF) {
 			System.out.print("\t");
-            outputAncestorTrail2(ref);
-			ref = ref.nodeLink;
+            outputAncestorTrail2(tree,ref);
+			ref = tree.nodeLink[ref];
 			System.out.println();
 	    }
 	}
 	
     /** Outputs the given ancestor trail node in prefix sub tree. 
+	 @param tree the FP-tree.
 	 @param ref the reference to the given node. */	
 	
-    private void outputAncestorTrail2(FPgrowthItemPrefixSubtreeNode ref) {
-		while (ref != null) {
-			System.out.print("(" + (reconvertItem(ref.itemName)) + ":" + 
-							 ref.itemCount + ") ");
-			ref = ref.parentRef;
+    private void outputAncestorTrail2(FPtreeNodes tree, int ref) {
+		while (ref != ROOT) {
+			System.out.print("(" + (reconvertItem(tree.getItemName(ref))) + ":" + 
+							 tree.itemCount[ref] + ") ");
+			ref = tree.parentRef[ref];
 	    }
 	}
     
@@ -1017,9 +1345,8 @@ public class FPtree extends TotalSupportTree {
 	 of updates and number of nodes. */
 	
     public void outputFPtreeStorage() {
-        int storage=8;	// 8 Bytes for root node
-		numberOfNodes = 1;   // For root node
-		storage = calculateStorage(rootNode.childRefs,storage); 
+		numberOfNodes = fpTree.size;   // Includes root node
+		int storage = numberOfNodes*NODE_STORAGE; 
 		
 		// Add header table.
 		
@@ -1028,52 +1355,6 @@ public class FPtree extends TotalSupportTree {
 		System.out.println("FP tree updates = " + numUpdates);
 		System.out.println("FP tree nodes   = " + numberOfNodes);
 	}
-	
-    /* CALCULATE STORAGE */
-    
-    /** Determines storage requirements for FP-tree.
-	 @param ref the reference to the current portion of the P-tree under
-	 consideration.
-	 @param storage the storage requirements so far. 
-	 @return the storage in Bytes required for the given FP=tree node.*/
-	
-    private int calculateStorage(FPtreeNode[] ref, int storage) {
-		if (ref == null) return(storage);
-		
-		// Process, each node has 14+8 bytes of storage, 8 for FP tree
-		// links (child and sibling), 14 for prefix tree links (parentRef, 
-		// nodeRef, Support, ID
-		
-        for (int index=0;index<ref.length;index++) {
-			storage = storage + 14 + 8;
-			numberOfNodes++;
-			storage = calculateStorage(ref[index].childRefs,storage);
-	    }
-		
-		// Return
-		
-		return(storage);
-	}
-	
-    /* OUTPUT LOCAL ARRAY COUNT */
-	
-    /** Output local array count structure (diagnostic use only). 
-	 @param countArray the array of <TT>FPgrowthColumnCounts</TT> structures 
-	 describing the single item sets (in terms of labels and associated 
-	 support), contained in a linked list of <TT>FPgrowthSupportedSets</TT>
-	 which in turn describe the ancestor nodes in an FP-tree that preceed the 
-	 nodes identified by following a trail of links from a particular item in 
-	 the header table.  */
-    
-    private void outputColumnCount(FPgrowthColumnCounts[] countArray) {
-    	
-		for(int index=1;index<countArray.length;index++) {
-			System.out.print("Col " + countArray[index].columnNum + " : ");
-			if (countArray[index].support == 0) 
-				System.out.println("Unsupported");
-			else System.out.println(countArray[index].support);
-	    }
-		System.out.println();
-	}
+
 }
 
@@ -0,0 +1,25 @@
+/********************************************************************************
+ File: FrequentSetSink.java
+ Description: 
+	Receives the frequent itemsets found by FPtree.startMining(int, 
+	FrequentSetSink) as they are found, in place of the T-tree, which is 
+	only needed to generate rules or to write all the frequent sets at once.
+*********************************************************************************/
+
+package fim.fpgrowth; 
+
+import java.io.IOException;
+
+
+public interface FrequentSetSink
+{
+	/*
+	 Method: addFrequentSet
+	 Description: 
+		Receives a frequent itemset, made of the items (input item ids, not 
+		ranks) in items[0, length), in no particular order, and its support 
+		(number of records). The array is reused for the next itemset. Calls 
+		are never concurrent, even when mining with more than one thread. 
+	 */
+	public void addFrequentSet(int[] items, int length, int support) throws IOException; 
+}
@@ -70,6 +70,13 @@ public class TotalSupportTree extends AssocRuleMining {
 		super(transactions, numTransactions, minFreqPercent);
 	}
 	
+    /** Processes records renumbered according to a given ranking of the 
+	 items. */
+    
+    public TotalSupportTree(int[] rankedItems, float minFreqPercent) {
+		super(rankedItems, minFreqPercent);
+	}
+	
 	
     /* ------ METHODS ------ */
 	
@@ -88,7 +95,7 @@ public class TotalSupportTree extends AssocRuleMining {
 	 numeric order!).
 	 @param support The support value associated with the given itemset. */
     
-    public void addToTtree(short[] itemSet, int support) {
+    public void addToTtree(int[] itemSet, int support) {
         // Determine index of last elemnt in itemSet.
 		int endIndex = itemSet.length-1;
 		
@@ -109,7 +116,7 @@ public class TotalSupportTree extends AssocRuleMining {
 	 @return the reference to the revised sub-branch of t-tree. */
     
     protected TtreeNode[] addToTtree(TtreeNode[] linkRef, int size, int endIndex,
-									 short[] itemSet, int support) {
+									 int[] itemSet, int support) {
 		// If no array describing current level in the T-tree or T-tree
 		// sub-branch create one with "null" nodes.	
 		if (linkRef == null) {
@@ -156,7 +163,7 @@ public class TotalSupportTree extends AssocRuleMining {
 	 @param itemSet the given itemset.
 	 @return returns the support value (0 if not found). */
 	
-    protected int getSupportForItemSetInTtree(short[] itemSet) {
+    protected int getSupportForItemSetInTtree(int[] itemSet) {
 		int endInd = itemSet.length-1;
 		
     	// Last element of itemset in Ttree (Note: Ttree itemsets stored in
@@ -185,7 +192,7 @@ public class TotalSupportTree extends AssocRuleMining {
 	 @param linRef the reference to the current T-tree level.
 	 @return returns the support value (0 if not found). */
 	
-    private int getSupForIsetInTtree2(short[] itemSet, int index,
+    private int getSupForIsetInTtree2(int[] itemSet, int index,
 									  TtreeNode[] linkRef) {
         // Element at "index" in item set exists in Ttree
 		if (linkRef[itemSet[index]] != null) {
@@ -237,8 +244,8 @@ public class TotalSupportTree extends AssocRuleMining {
 			{
 				if (startTtreeRef[index].support >= minSupport) 
 				{
-					short[] itemSetSoFar = new short[1];
-					itemSetSoFar[0] = (short) index;
+					int[] itemSetSoFar = new int[1];
+					itemSetSoFar[0] = index;
 					generateARs(itemSetSoFar,index,
 								startTtreeRef[index].childRef);
 				}
@@ -254,7 +261,7 @@ public class TotalSupportTree extends AssocRuleMining {
 	 @param size the length/size of the current array lavel in the T-tree.
 	 @param linkRef the reference to the current array level in the T-tree. */
 	
-    protected void generateARs(short[] itemSetSofar, int size,
+    protected void generateARs(int[] itemSetSofar, int size,
 							   TtreeNode[] linkRef) 
 	{
 		
@@ -269,7 +276,7 @@ public class TotalSupportTree extends AssocRuleMining {
 				if (linkRef[index].support >= minSupport) 
 				{
 					// Temp itemset
-					short[] tempItemSet = realloc2(itemSetSofar,(short) index);
+					int[] tempItemSet = realloc2(itemSetSofar,index);
 					// Generate ARs for current large itemset
 					generateARsFromItemset(tempItemSet,linkRef[index].support);
 					// Continue generation process
@@ -286,16 +293,16 @@ public class TotalSupportTree extends AssocRuleMining {
 	 @param itemSet the given large itemset.
 	 @param support the associated support value for the given large itemset. */
 	
-    private void generateARsFromItemset(short[] itemSet, double support) 
+    private void generateARsFromItemset(int[] itemSet, double support) 
 	{
     	// Determine combinations
-		short[][] combinations = combinations(itemSet);
+		int[][] combinations = combinations(itemSet);
 		
 		// Loop through combinations
 		for(int index=0;index<combinations.length;index++) 
 		{
             // Find complement of combination in given itemSet
-			short[] complement = complement(combinations[index],itemSet);
+			int[] complement = complement(combinations[index],itemSet);
 			// If complement is not empty generate rule
 			if (complement != null) 
 			{
@@ -326,7 +333,7 @@ public class TotalSupportTree extends AssocRuleMining {
 	 @return the associated confidence value (as a precentage) correct to two 
 	 decimal places. */
     
-    protected double getConfidence(short[] antecedent, double support) {
+    protected double getConfidence(int[] antecedent, double support) {
         // Get support for antecedent
         double supportForAntecedent = (double)
 		getSupportForItemSetInTtree(antecedent);
@@ -371,12 +378,12 @@ public class TotalSupportTree extends AssocRuleMining {
 		
 		// Loop
 		
-		for (short index=1; index < startTtreeRef.length; index++) 
+		for (int index=1; index < startTtreeRef.length; index++) 
 		{
 			if (startTtreeRef[index] !=null) 
 			{
 				String itemSetSofar = 
-				new Short(reconvertItem(index)).toString();
+				Integer.toString(reconvertItem(index));
 				System.out.print("[" + number + "] {" + itemSetSofar);
 				System.out.println("} = " + startTtreeRef[index].support);
 				outputTtree(new Integer(number).toString(),itemSetSofar,
@@ -403,7 +410,7 @@ public class TotalSupportTree extends AssocRuleMining {
 		if (linkRef == null) return;
 		
 		// Loop through current level of branch/sub-branch.
-		for (short index=1;index<linkRef.length;index++) {
+		for (int index=1;index<linkRef.length;index++) {
 			if (linkRef[index] != null) {
 				String newItemSet = itemSetSofar + (reconvertItem(index));
 				System.out.print("[" + number + num + "] {" + newItemSet);
@@ -421,13 +428,13 @@ public class TotalSupportTree extends AssocRuleMining {
 			String itemset; 
 			int number = 1;
 			
-			for (short index=1; index <= numOneItemSets; index++) 
+			for (int index=1; index <= numOneItemSets; index++) 
 			{
 				if (startTtreeRef[index] !=null) 
 				{
 					if (startTtreeRef[index].support >= minSupport) 
 					{
-						String itemSetSofar = new Short(reconvertItem(index)).toString();
+						String itemSetSofar = Integer.toString(reconvertItem(index));
 						//System.out.println("{" + itemSetSofar + "} = " + startTtreeRef[index].support + "\n");
 						
 						itemset = new String(itemSetSofar); 
@@ -454,7 +461,7 @@ public class TotalSupportTree extends AssocRuleMining {
 			
 			// Otherwise process
 			itemSetSofar = itemSetSofar + " ";
-			for (short index=1; index < size; index++) 
+			for (int index=1; index < size; index++) 
 			{
 				if (linkRef[index] != null) 
 				{
@@ -493,13 +500,13 @@ public class TotalSupportTree extends AssocRuleMining {
 			
 			int number = 1;
 			
-			for (short index=1; index <= numOneItemSets; index++) 
+			for (int index=1; index <= numOneItemSets; index++) 
 			{
 				if (startTtreeRef[index] !=null) 
 				{
 					if (startTtreeRef[index].support >= minSupport) 
 					{
-						String itemSetSofar = new Short(reconvertItem(index)).toString();
+						String itemSetSofar = Integer.toString(reconvertItem(index));
 						out_file.write("{" + itemSetSofar + "} = " + startTtreeRef[index].support + "\n");
 						number = writeFrequentSets(out_file, number+1,itemSetSofar, index,startTtreeRef[index].childRef);
 					}
@@ -524,7 +531,7 @@ public class TotalSupportTree extends AssocRuleMining {
 			
 			// Otherwise process
 			itemSetSofar = itemSetSofar + " ";
-			for (short index=1; index < size; index++) 
+			for (int index=1; index < size; index++) 
 			{
 				if (linkRef[index] != null) 
 				{
@@ -562,11 +569,11 @@ public class TotalSupportTree extends AssocRuleMining {
 		
 		// Loop
 		
-		for (short index=1; index <= numOneItemSets; index++) {
+		for (int index=1; index <= numOneItemSets; index++) {
 			if (startTtreeRef[index] !=null) {
 				if (startTtreeRef[index].support >= minSupport) {
 					String itemSetSofar = 
-					new Short(reconvertItem(index)).toString();
+					Integer.toString(reconvertItem(index));
 					//System.out.println("[" + number + "] {" + itemSetSofar + "} = " + startTtreeRef[index].support);
 					System.out.println("{" + itemSetSofar + "} = " + startTtreeRef[index].support);
 					number = outputFrequentSets(number+1,itemSetSofar, index,startTtreeRef[index].childRef);
@@ -597,7 +604,7 @@ public class TotalSupportTree extends AssocRuleMining {
 		// Otherwise process
 		
 		itemSetSofar = itemSetSofar + " ";
-		for (short index=1; index < size; index++) {
+		for (int index=1; index < size; index++) {
 			if (linkRef[index] != null) {
 				if (linkRef[index].support >= minSupport) {
 					String newItemSet = itemSetSofar + (reconvertItem(index));
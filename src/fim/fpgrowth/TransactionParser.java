@@ -0,0 +1,117 @@
+/********************************************************************************
+ File: TransactionParser.java
+ Description: 
+	Parses transactions (lines of white space separated item ids) from their
+	UTF-8 bytes, as held by a Text or read by a LineReader, into a reused 
+	array of integers, without creating a String or a token per item. 
+*********************************************************************************/
+
+package fim.fpgrowth; 
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import org.apache.hadoop.io.Text;
+
+
+public class TransactionParser
+{
+	private static final Charset UTF8 = Charset.forName("UTF-8"); 
+
+	private int[] items = new int[64]; 
+	private int size = 0; 
+
+	/*
+	 Method: parse
+	 Description: 
+		Parses the given transaction. 
+	 Returns: 
+		the number of items in the transaction (0 for an empty line). 
+	 Throws: 
+		NumberFormatException if the line has characters other than digits and
+		white space, or an item larger than Integer.MAX_VALUE.
+	 */
+	public int parse(Text line)
+	{
+		return parse(line.getBytes(), 0, line.getLength()); 
+	}
+
+	/*
+	 Method: parse
+	 Description: 
+		Same as above, for the transaction in bytes[start, start+length). 
+	 */
+	public int parse(byte[] bytes, int start, int length)
+	{
+		int end = start + length; 
+		int pos = start; 
+		size = 0; 
+		while (pos < end)
+		{
+			int b = bytes[pos]; 
+			if (b >= '0' && b <= '9')
+			{
+				long item = 0; 
+				do
+				{
+					item = item * 10 + (b - '0'); 
+					if (item > Integer.MAX_VALUE)
+					{
+						throw new NumberFormatException("Item out of range in: " + 
+							new String(bytes, start, length, UTF8)); 
+					}
+					pos++; 
+				} while (pos < end && (b = bytes[pos]) >= '0' && b <= '9'); 
+
+				if (size == items.length)
+				{
+					items = Arrays.copyOf(items, 2 * size); 
+				}
+				items[size++] = (int) item; 
+			}
+			else if (isWhitespace(b))
+			{
+				pos++; 
+			}
+			else
+			{
+				throw new NumberFormatException("Not a digit or white space in: " + 
+					new String(bytes, start, length, UTF8)); 
+			}
+		}
+		return size; 
+	}
+
+	/*
+	 Method: getItems
+	 Description: 
+		The items of the last parsed transaction, in the first size() elements.
+		The array is reused by the next call to parse(). 
+	 */
+	public int[] getItems()
+	{
+		return items; 
+	}
+
+	public int size()
+	{
+		return size; 
+	}
+
+	/*
+	 Method: toArray
+	 Description: 
+		A copy of the items of the last parsed transaction. 
+	 */
+	public int[] toArray()
+	{
+		return Arrays.copyOf(items, size); 
+	}
+
+	/*
+	 The ASCII characters for which Character.isWhitespace() is true. 
+	 */
+	private static boolean isWhitespace(int b)
+	{
+		return b == ' ' || (b >= 0x09 && b <= 0x0D) || (b >= 0x1C && b <= 0x1F); 
+	}
+}
@@ -0,0 +1,80 @@
+/********************************************************************************
+ File: TransactionParserBenchmark.java
+ Description: 
+	Measures the throughput of TransactionParser on a transactions file, to 
+	compare with the rate the file can be read at (e.g. from HDFS). 
+ Parameters: 
+	<file> [rounds (defaults to 10)]
+ Output: 
+	the parsing rate with the file in memory, and the rate reading it from 
+	disk with a LineReader as AssocRuleMining does, in MB/s. 
+*********************************************************************************/
+
+package fim.fpgrowth; 
+
+import java.io.*;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.util.LineReader;
+
+
+public class TransactionParserBenchmark
+{
+	public static void main(String[] args) throws IOException
+	{
+		if (args.length < 1)
+		{
+			System.err.println("Usage: TransactionParserBenchmark <file> [rounds]"); 
+			System.exit(1); 
+		}
+		File file = new File(args[0]); 
+		int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 10; 
+
+		byte[] bytes = new byte[(int) file.length()]; 
+		DataInputStream in = new DataInputStream(new FileInputStream(file)); 
+		in.readFully(bytes); 
+		in.close(); 
+
+		TransactionParser parser = new TransactionParser(); 
+		long items = 0; 
+		// The first round warms up the JIT and is not timed. 
+		for (int round = 0; round <= rounds; round++)
+		{
+			long start_time = System.nanoTime(); 
+			items = 0; 
+			int lineStart = 0; 
+			for (int pos = 0; pos <= bytes.length; pos++)
+			{
+				if (pos == bytes.length || bytes[pos] == '\n')
+				{
+					items += parser.parse(bytes, lineStart, pos - lineStart); 
+					lineStart = pos + 1; 
+				}
+			}
+			if (round > 0)
+			{
+				report("in memory", bytes.length, System.nanoTime() - start_time); 
+			}
+		}
+		System.out.println("items: " + items); 
+
+		for (int round = 0; round < rounds; round++)
+		{
+			long start_time = System.nanoTime(); 
+			LineReader reader = new LineReader(new FileInputStream(file)); 
+			Text line = new Text(); 
+			while (reader.readLine(line) > 0)
+			{
+				parser.parse(line); 
+			}
+			reader.close(); 
+			report("from disk", bytes.length, System.nanoTime() - start_time); 
+		}
+	}
+
+	private static void report(String label, long bytesNum, long nanos)
+	{
+		double mbPerSecond = (bytesNum / (1024.0 * 1024.0)) / (nanos / 1e9); 
+		System.out.println(label + ": " + bytesNum + " bytes in " + (nanos / 1000000) + " ms (" + 
+			Math.round(mbPerSecond) + " MB/s)"); 
+	}
+}
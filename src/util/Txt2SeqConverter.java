@@ -26,7 +26,6 @@ import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.io.IOUtils;
 import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.SequenceFile;
-import org.apache.hadoop.io.Text;
 
 public class Txt2SeqConverter
 {
@@ -51,12 +50,12 @@ public class Txt2SeqConverter
 		Path path = new Path(seqFileName);
 
 		LongWritable key = new LongWritable();
-		Text value = new Text();
+		ItemsetWritable value = new ItemsetWritable();
 		SequenceFile.Writer writer = null;
 		try
 		{
-		  	//writer = SequenceFile.createWriter(fs, conf, path, LongWritable.class, Text.class, SequenceFile.CompressionType.BLOCK);
-		  	writer = SequenceFile.createWriter(fs, conf, path, LongWritable.class, Text.class, SequenceFile.CompressionType.BLOCK, new com.hadoop.compression.lzo.LzoCodec());
+		  	//writer = SequenceFile.createWriter(fs, conf, path, LongWritable.class, ItemsetWritable.class, SequenceFile.CompressionType.BLOCK);
+		  	writer = SequenceFile.createWriter(fs, conf, path, LongWritable.class, ItemsetWritable.class, SequenceFile.CompressionType.BLOCK, new com.hadoop.compression.lzo.LzoCodec());
 			BufferedReader br = new BufferedReader(new FileReader(args[0]));
 
 			int transactionID = 0;